@@ -0,0 +1,34 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+public class BenchmarkRunner {
+    /**
+     * Runs every benchmark (or only the ones matching the first argument, a regex like "CubeBenchmark.turnFace") with
+     * the allocation profiler, the same as passing -prof gc on the command line. The results go to a JSON file in
+     * benchmarks/results named after the date, or to the second argument, so runs from different releases can be
+     * compared later with any JMH result viewer.
+     */
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : "benchmarks\\.";
+        String output = args.length > 1 ? args[1] : "benchmarks/results/" + new SimpleDateFormat("yyyy-MM-dd-HHmm").format(new Date()) + ".json";
+        File parent = new File(output).getAbsoluteFile().getParentFile();
+        if (!parent.isDirectory() && !parent.mkdirs()) throw new RuntimeException("could not create " + parent);
+        Options options = new OptionsBuilder()
+                .include(include)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(output)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,120 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g", "-XX:+UseParallelGC", "-Djava.awt.headless=true"})
+public class CubeBenchmark {
+    /**
+     * The basic operations of a Cube, for every implementation and a spread of sizes. Nothing here touches JavaFX.
+     * Every input comes from a fixed seed, so two runs do exactly the same work. The cube is reached through Engine.
+     *
+     * Face and rotation moves are quarter turns in one direction, so the cube cycles through 4 states and the cost
+     * stays the same from one call to the next.
+     */
+    static final long SEED = 0x5eed;
+    //every letter the notation has, the same as Move.LETTERS
+    static final String LETTERS = "ULFRBDulfrbdMESxyz";
+    static final String[] SUFFIXES = {"", "2", "'"};
+
+    @Param({"ArrayCube", "PackedCube"})
+    String implementation;
+
+    @Param({"2", "3", "4", "7", "17"})
+    int n;
+
+    Object cube;
+    //the same cube, but with its hash switched on so every move keeps it up to date
+    Object hashedCube;
+    String algorithm;
+    int[] xs, ys, zs, faces;
+
+    static String algorithm(long seed, int length) {
+        //a scramble made of every kind of move the notation has, so doAlgorithm isn't only measured on face turns
+        SplittableRandom random = new SplittableRandom(seed);
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            if (i > 0) builder.append(' ');
+            builder.append(LETTERS.charAt(random.nextInt(LETTERS.length()))).append(SUFFIXES[random.nextInt(3)]);
+        }
+        return builder.toString();
+    }
+
+    @Setup
+    public void setUp() {
+        cube = Engine.create(implementation, n);
+        algorithm = algorithm(SEED, 40);
+        Engine.doAlgorithm(cube, algorithm(SEED + 1, 40));
+        hashedCube = Engine.create(implementation, n);
+        Engine.doAlgorithm(hashedCube, algorithm(SEED + 1, 40));
+        try {
+            //the hash itself isn't needed, asking for it once is what makes every move after this keep it up to date.
+            //invokeExact has to be cast to the handle's return type, so it goes into a variable that is never read
+            long unused = (long) Engine.STATE_HASH.invokeExact(hashedCube);
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+        //the cubie coordinates of every sticker, worked out the same way as StickerMap
+        int stickers = 6 * n * n;
+        xs = new int[stickers];
+        ys = new int[stickers];
+        zs = new int[stickers];
+        faces = new int[stickers];
+        for (int i = 0; i < stickers; i++) {
+            int face = i / (n * n), row = i % (n * n) / n, col = i % n;
+            faces[i] = face;
+            switch (face) {
+                case 0: xs[i] = col; ys[i] = 0; zs[i] = n - row - 1; break;
+                case 1: xs[i] = 0; ys[i] = row; zs[i] = n - col - 1; break;
+                case 2: xs[i] = col; ys[i] = row; zs[i] = 0; break;
+                case 3: xs[i] = n - 1; ys[i] = row; zs[i] = col; break;
+                case 4: xs[i] = n - col - 1; ys[i] = row; zs[i] = n - 1; break;
+                default: xs[i] = col; ys[i] = n - 1; zs[i] = row; break;
+            }
+        }
+    }
+
+    @Benchmark
+    public Object turnFace() throws Throwable {
+        Engine.RIGHT.invokeExact(cube, Engine.CLOCKWISE);
+        return cube;
+    }
+
+    @Benchmark
+    public long turnFaceHashed() throws Throwable {
+        Engine.RIGHT.invokeExact(hashedCube, Engine.CLOCKWISE);
+        return (long) Engine.STATE_HASH.invokeExact(hashedCube);
+    }
+
+    @Benchmark
+    public Object turnCube() throws Throwable {
+        Engine.X.invokeExact(cube, Engine.CLOCKWISE);
+        return cube;
+    }
+
+    @Benchmark
+    public Object doAlgorithm() throws Throwable {
+        Engine.DO_ALGORITHM.invokeExact(cube, algorithm);
+        return cube;
+    }
+
+    @Benchmark
+    public String shuffle() throws Throwable {
+        return (String) Engine.SHUFFLE.invokeExact(cube, true, 25);
+    }
+
+    @Benchmark
+    public void getFaceColour(Blackhole blackhole) throws Throwable {
+        for (int i = 0; i < faces.length; i++) {
+            blackhole.consume((Object) Engine.GET_FACE_COLOUR.invokeExact(cube, xs[i], ys[i], zs[i], faces[i]));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+import static java.lang.invoke.MethodType.methodType;
+
+final class Engine {
+    /**
+     * JMH won't run benchmarks from the default package, and nothing outside the default package can name a class in
+     * it, which is where all of the cube code lives. So the benchmarks get at the cube through these method handles
+     * instead. They are static final, so the JIT treats them as constants and inlines straight through to the normal
+     * interface call, and cubes and turns are passed around as plain Objects.
+     */
+    static final Class<?> CUBE = load("Cube");
+    static final Class<?> TURN = load("Cube$Turn");
+    static final Object CLOCKWISE = turn("CLOCKWISE");
+
+    //(cube, turn)
+    static final MethodHandle RIGHT = virtual("Right", methodType(void.class, TURN));
+    static final MethodHandle X = virtual("x", methodType(void.class, TURN));
+    //(cube, algorithm)
+    static final MethodHandle DO_ALGORITHM = virtual("doAlgorithm", methodType(void.class, String.class));
+    //(cube, giveSolution, length) -> scramble
+    static final MethodHandle SHUFFLE = virtual("shuffle", methodType(String.class, boolean.class, int.class));
+    //(cube) -> hash
+    static final MethodHandle STATE_HASH = virtual("stateHash", methodType(long.class));
+    //(cube, x, y, z, face) -> colour
+    static final MethodHandle GET_FACE_COLOUR = virtual("getFaceColour", methodType(load("Cube$Colour"), int.class, int.class, int.class, int.class));
+
+    private Engine() {
+    }
+
+    private static Class<?> load(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException e) {
+            throw new RuntimeException("the Rubiks Cube module isn't on the classpath", e);
+        }
+    }
+
+    private static Object turn(String name) {
+        for (Object turn : TURN.getEnumConstants()) {
+            if (((Enum<?>) turn).name().equals(name)) return turn;
+        }
+        throw new RuntimeException("no turn called " + name);
+    }
+
+    private static MethodHandle virtual(String name, MethodType type) {
+        //the cube and any other default package types become Object, primitives and Strings stay as they are
+        MethodType erased = methodType(erase(type.returnType())).appendParameterTypes(Object.class);
+        for (Class<?> parameter : type.parameterList()) {
+            erased = erased.appendParameterTypes(erase(parameter));
+        }
+        try {
+            return MethodHandles.publicLookup().findVirtual(CUBE, name, type).asType(erased);
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("Cube has no method " + name + type, e);
+        }
+    }
+
+    private static Class<?> erase(Class<?> type) {
+        return type.isPrimitive() || type == String.class ? type : Object.class;
+    }
+
+    static Object create(String implementation, int n) {
+        try {
+            MethodHandle constructor = MethodHandles.publicLookup().findConstructor(load(implementation), methodType(void.class, int.class));
+            return constructor.invoke(n);
+        } catch (Throwable e) {
+            throw new RuntimeException("could not make a " + implementation + " of size " + n, e);
+        }
+    }
+
+    static void doAlgorithm(Object cube, String algorithm) {
+        try {
+            DO_ALGORITHM.invoke(cube, algorithm);
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
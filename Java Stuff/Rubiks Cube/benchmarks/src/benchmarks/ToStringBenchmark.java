@@ -0,0 +1,35 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g", "-XX:+UseParallelGC", "-Djava.awt.headless=true"})
+public class ToStringBenchmark {
+    /**
+     * toString, which builds the whole text net every time.
+     */
+    @Param({"ArrayCube", "PackedCube"})
+    String implementation;
+
+    @Param({"2", "3", "4", "7", "17"})
+    int n;
+
+    Object cube;
+
+    @Setup
+    public void setUp() {
+        cube = Engine.create(implementation, n);
+        Engine.doAlgorithm(cube, CubeBenchmark.algorithm(CubeBenchmark.SEED + 1, 40));
+    }
+
+    @Benchmark
+    public String toText() {
+        return cube.toString();
+    }
+}
@@ -0,0 +1,179 @@
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class Algorithm {
+    /**
+     * An algorithm compiled down to the single sticker permutation it performs on a cube of size n. After applying
+     * it, the sticker at index changed[i] holds whatever colour was at sources[i] before, so applying it costs one pass
+     * over the stickers it moves no matter how many moves the algorithm had. Only the stickers that move are kept,
+     * which on a big cube is a lot less than the whole permutation. The moves are run through Simplifier first, so
+     * compiling doesn't do passes that cancel out.
+     *
+     * Compiled algorithms are cached on the size and the moves as join() writes them out again, so "R  U", "Rw U"
+     * and "r U" share one entry. A string seen before that isn't written that way already is also kept in a smaller
+     * front cache as given, so compile() on it is still a single lookup without parsing it again. Lookups take no
+     * lock, so threads don't wait on each other. The cache is bounded by how many stickers its algorithms move in
+     * total rather than how many there are, since one on a big cube can move thousands. Once it's full, algorithms
+     * are evicted "clock" style: a lookup marks an algorithm as used, and eviction goes through the cache clearing the
+     * marks and removing the ones that weren't marked, so the ones in use get a second chance. It's only roughly least
+     * recently used, but hits cost one field write at most.
+     */
+    //the total length of changed over every cached algorithm, about 8 bytes for each
+    static final int CACHE_STICKERS = 1 << 20;
+    //strings as given that aren't normalised, which the front cache can hold before it is emptied
+    static final int FRONT_ENTRIES = 4096;
+    private static final ConcurrentHashMap<String, Algorithm> cache = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, Algorithm> front = new ConcurrentHashMap<>();
+    private static final AtomicLong cachedStickers = new AtomicLong();
+    //held by whichever thread is evicting, and the others carry on without waiting for it
+    private static final AtomicBoolean evicting = new AtomicBoolean();
+
+    final int n;
+    final Move[] moves;
+    final String moveString;
+    final int[] changed;
+    final int[] sources;
+    //set by every cache hit, and cleared by eviction passing over it
+    private volatile boolean used;
+    //set once it has been evicted, so front cache entries for it stop being used
+    private volatile boolean evicted;
+
+    private Algorithm(int n, Move[] moves) {
+        this.n = n;
+        this.moves = moves;
+        moveString = join(moves);
+        MoveTable table = MoveTable.forSize(n);
+        int[] permutation = new int[table.map.size];
+        for (int i = 0; i < permutation.length; i++) {
+            permutation[i] = i;
+        }
+        for (Move move : Simplifier.simplify(moves, n)) {
+            table.apply(permutation, move.face(), move.from(n), move.to(n), move.turns);
+        }
+        int count = 0;
+        for (int i = 0; i < permutation.length; i++) {
+            if (permutation[i] != i) count++;
+        }
+        changed = new int[count];
+        sources = new int[count];
+        count = 0;
+        for (int i = 0; i < permutation.length; i++) {
+            if (permutation[i] != i) {
+                changed[count] = i;
+                sources[count++] = permutation[i];
+            }
+        }
+    }
+
+    public static Algorithm compile(String input, int n) throws IllegalArgumentException {
+        //a string that is already normalised is found in the cache itself, and any other one seen before in the front
+        String key = n + "|" + input;
+        Algorithm algorithm = cache.get(key);
+        if (algorithm == null) {
+            algorithm = front.get(key);
+            if (algorithm != null && algorithm.evicted) algorithm = null;
+        }
+        if (algorithm != null) return hit(algorithm);
+        Move[] moves = Move.parseAll(input);
+        String normalKey = n + "|" + join(moves);
+        algorithm = cache.get(normalKey);
+        if (algorithm != null) {
+            hit(algorithm);
+        } else {
+            algorithm = new Algorithm(n, moves);
+            //another thread may have compiled the same one meanwhile, in which case theirs is kept and this one is
+            //only used this once
+            Algorithm existing = cache.putIfAbsent(normalKey, algorithm);
+            if (existing != null) {
+                algorithm = existing;
+            } else if (cachedStickers.addAndGet(algorithm.changed.length) > CACHE_STICKERS) {
+                evict();
+            }
+        }
+        if (!normalKey.equals(key)) {
+            //emptied rather than evicted from, as an entry only saves parsing the string again
+            if (front.size() >= FRONT_ENTRIES) front.clear();
+            front.put(key, algorithm);
+        }
+        return algorithm;
+    }
+
+    private static Algorithm hit(Algorithm algorithm) {
+        //only written when it changes, so algorithms in constant use don't keep writing to memory other threads read
+        if (!algorithm.used) algorithm.used = true;
+        return algorithm;
+    }
+
+    private static void evict() {
+        if (!evicting.compareAndSet(false, true)) return;
+        try {
+            //at most two passes: the first can find every algorithm marked, but it clears them as it goes
+            for (int pass = 0; pass < 2 && cachedStickers.get() > CACHE_STICKERS * 3L / 4; pass++) {
+                for (Iterator<Map.Entry<String, Algorithm>> it = cache.entrySet().iterator(); it.hasNext(); ) {
+                    Algorithm algorithm = it.next().getValue();
+                    if (algorithm.used) {
+                        algorithm.used = false;
+                    } else {
+                        it.remove();
+                        algorithm.evicted = true;
+                        if (cachedStickers.addAndGet(-algorithm.changed.length) <= CACHE_STICKERS * 3L / 4) break;
+                    }
+                }
+            }
+            //so the front cache doesn't keep evicted algorithms' stickers in memory
+            front.values().removeIf(algorithm -> algorithm.evicted);
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private static String join(Move[] moves) {
+        //the moves written out one way, with single spaces and wide moves as lower case letters, for the cache key
+        StringBuilder builder = new StringBuilder();
+        for (Move move : moves) {
+            if (builder.length() > 0) builder.append(' ');
+            builder.append(move);
+        }
+        return builder.toString();
+    }
+
+    public void applyTo(ArrayCube cube) {
+        if (cube.n != n) throw new IllegalArgumentException("algorithm was compiled for a " + n + "x" + n + " cube");
+        cube.permute(changed, sources);
+    }
+
+    public void applyTo(PackedCube cube) {
+        if (cube.n != n) throw new IllegalArgumentException("algorithm was compiled for a " + n + "x" + n + " cube");
+        byte[] stickers = cube.stickers;
+        byte[] scratch = cube.scratch();
+        for (int i = 0; i < changed.length; i++) {
+            scratch[i] = stickers[sources[i]];
+        }
+        if (cube.hashing) {
+            long[] keys = cube.table.zobrist;
+            long hash = cube.hash;
+            for (int i = 0; i < changed.length; i++) {
+                int sticker = changed[i];
+                hash ^= keys[sticker * 6 + stickers[sticker]] ^ keys[sticker * 6 + scratch[i]];
+                stickers[sticker] = scratch[i];
+            }
+            cube.hash = hash;
+        } else {
+            for (int i = 0; i < changed.length; i++) {
+                stickers[changed[i]] = scratch[i];
+            }
+        }
+        cube.changed.add(changed);
+    }
+
+    public int length() {
+        return moves.length;
+    }
+
+    public String toString() {
+        return moveString;
+    }
+}
@@ -1,3 +1,4 @@
+import javafx.geometry.Point3D;
 import javafx.scene.transform.Rotate;
 
 import java.util.ArrayList;
@@ -7,7 +8,6 @@ public class Animator {
     Cubie[][][] cubies;
     Cube cube;
     int n;
-    ArrayList<Cubie> cubiesToMove;
 
     public Animator(Controller c) {
         controller = c;
@@ -16,146 +16,101 @@ public class Animator {
         cube = controller.cube;
     }
 
-    public void Up(Cube.Turn turn,boolean wide) {
-        cubiesToMove = new ArrayList<>();
-        cube.setNextMoveIsWide(wide);
-        cube.Up(turn);
-        for (int x = 0; x < n; x ++) {
-            for (int z = 0; z < n; z++) {
-                cubiesToMove.add(cubies[x][0][z]);
-                if (wide) cubiesToMove.add(cubies[x][1][z]);
-            }
-        }
-        controller.animateSpin(cubiesToMove,turn, Rotate.Y_AXIS);
+    public void Up(Cube.Turn turn, boolean wide) {
+        apply(new Move(wide ? 'u' : 'U', turns(turn)));
     }
 
     public void Left(Cube.Turn turn, boolean wideSelected) {
-        cubiesToMove = new ArrayList<>();
-        cube.setNextMoveIsWide(wideSelected);
-        cube.Left(turn);
-        for (int y = 0; y < n; y ++) {
-            for (int z = 0; z < n; z++) {
-                cubiesToMove.add(cubies[0][y][z]);
-                if (wideSelected) cubiesToMove.add(cubies[1][y][z]);
-            }
-        }
-        controller.animateSpin(cubiesToMove,turn, Rotate.X_AXIS);
+        apply(new Move(wideSelected ? 'l' : 'L', turns(turn)));
     }
 
     public void Right(Cube.Turn turn, boolean wideSelected) {
-        cubiesToMove = new ArrayList<>();
-        cube.setNextMoveIsWide(wideSelected);
-        cube.Right(turn);
-        for (int y = 0; y < n; y ++) {
-            for (int z = 0; z < n; z++) {
-                cubiesToMove.add(cubies[2][y][z]);
-                if (wideSelected) cubiesToMove.add(cubies[1][y][z]);
-            }
-        }
-        controller.animateSpin(cubiesToMove,cube.inverseTurn(turn), Rotate.X_AXIS);
+        apply(new Move(wideSelected ? 'r' : 'R', turns(turn)));
     }
 
     public void Front(Cube.Turn turn, boolean wideSelected) {
-        cubiesToMove = new ArrayList<>();
-        cube.setNextMoveIsWide(wideSelected);
-        cube.Front(turn);
-        for (int x = 0; x < n; x ++) {
-            for (int y = 0; y < n; y++) {
-                cubiesToMove.add(cubies[x][y][0]);
-                if (wideSelected) cubiesToMove.add(cubies[x][y][1]);
-            }
-        }
-        controller.animateSpin(cubiesToMove,turn, Rotate.Z_AXIS);
+        apply(new Move(wideSelected ? 'f' : 'F', turns(turn)));
     }
 
-
     public void Back(Cube.Turn turn, boolean wideSelected) {
-        cubiesToMove = new ArrayList<>();
-        cube.setNextMoveIsWide(wideSelected);
-        cube.Back(turn);
-        for (int x = 0; x < n; x ++) {
-            for (int y = 0; y < n; y++) {
-                cubiesToMove.add(cubies[x][y][2]);
-                if (wideSelected) cubiesToMove.add(cubies[x][y][1]);
-            }
-        }
-        controller.animateSpin(cubiesToMove,cube.inverseTurn(turn), Rotate.Z_AXIS);
+        apply(new Move(wideSelected ? 'b' : 'B', turns(turn)));
     }
 
     public void Down(Cube.Turn turn, boolean wideSelected) {
-        cubiesToMove = new ArrayList<>();
-        cube.setNextMoveIsWide(wideSelected);
-        cube.Down(turn);
-        for (int x = 0; x < n; x ++) {
-            for (int z = 0; z < n; z++) {
-                cubiesToMove.add(cubies[x][2][z]);
-                if (wideSelected) cubiesToMove.add(cubies[x][1][z]);
-            }
-        }
-        controller.animateSpin(cubiesToMove,cube.inverseTurn(turn),Rotate.Y_AXIS);
+        apply(new Move(wideSelected ? 'd' : 'D', turns(turn)));
     }
 
     public void x(Cube.Turn turn) {
-        cubiesToMove = new ArrayList<>();
-        cube.x(turn);
-        addAll();
-        controller.animateSpin(cubiesToMove,cube.inverseTurn(turn), Rotate.X_AXIS);
+        apply(new Move('x', turns(turn)));
     }
 
     public void y(Cube.Turn turn) {
-        cubiesToMove = new ArrayList<>();
-        cube.y(turn);
-        addAll();
-        controller.animateSpin(cubiesToMove,turn, Rotate.Y_AXIS);
+        apply(new Move('y', turns(turn)));
     }
 
     public void z(Cube.Turn turn) {
-        cubiesToMove = new ArrayList<>();
-        cube.z(turn);
-        addAll();
-        controller.animateSpin(cubiesToMove,turn, Rotate.Z_AXIS);
+        apply(new Move('z', turns(turn)));
     }
 
     public void M(Cube.Turn turn) {
-        cubiesToMove = new ArrayList<>();
-        cube.M(turn);
-        for (int y = 0; y < n; y ++) {
-            for (int z = 0; z < n; z++) {
-                cubiesToMove.add(cubies[1][y][z]);
-            }
-        }
-        controller.animateSpin(cubiesToMove,turn, Rotate.X_AXIS);
+        apply(new Move('M', turns(turn)));
     }
 
     public void E(Cube.Turn turn) {
-        cubiesToMove = new ArrayList<>();
-        cube.E(turn);
-        for (int x = 0; x < n; x ++) {
-            for (int z = 0; z < n; z++) {
-                cubiesToMove.add(cubies[x][1][z]);
-            }
-        }
-        controller.animateSpin(cubiesToMove,cube.inverseTurn(turn), Rotate.Y_AXIS);
+        apply(new Move('E', turns(turn)));
     }
 
     public void S(Cube.Turn turn) {
-        cubiesToMove = new ArrayList<>();
-        cube.S(turn);
-        for (int x = 0; x < n; x ++) {
-            for (int y = 0; y < n; y++) {
-                cubiesToMove.add(cubies[x][y][1]);
-            }
+        apply(new Move('S', turns(turn)));
+    }
+
+    public void apply(Move move) {
+        //done through the timeline once the animation ends, so that it can be undone
+        spin(move, () -> controller.timeline.apply(move));
+    }
+
+    public void spin(Move move, Runnable action) {
+        //animates the move, and then runs action, which has to be what actually does it to the cube
+        spinLayers(move.face(), move.from(n), move.to(n), move.turn(), action);
+    }
+
+    private static int turns(Cube.Turn turn) {
+        switch (turn) {
+            case ANTICLOCKWISE: return 3;
+            case TWO: return 2;
+            default: return 1;
         }
-        controller.animateSpin(cubiesToMove,turn, Rotate.Z_AXIS);
     }
 
-    private void addAll() {
-        for (int x = 0; x < n; x ++) {
-            for (int y = 0; y < n; y++) {
-                for (int z = 0; z < n; z++) {
-                    cubiesToMove.add(cubies[x][y][z]);
+    private void spinLayers(int face, int from, int to, Cube.Turn turn, Runnable move) {
+        //layers from..to of the face, counted in from that face. U, L and F count up along their axis and spin the same
+        //way as the move, D, R and B count down from the far end and spin the opposite way. The move itself is only
+        //done on the cube once the animation gets to the end
+        ArrayList<Cubie> cubiesToMove = new ArrayList<>();
+        boolean far = face == 3 || face == 4 || face == 5;
+        for (int layer = from; layer <= to; layer++) {
+            int position = far ? n - 1 - layer : layer;
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    Cubie cubie;
+                    switch (face) {
+                        case 0: case 5: cubie = cubies[i][position][j]; break;
+                        case 1: case 3: cubie = cubies[position][i][j]; break;
+                        default: cubie = cubies[i][j][position]; break;
+                    }
+                    //only the outside of the cube has cubies
+                    if (cubie != null) cubiesToMove.add(cubie);
                 }
             }
         }
+        controller.scheduler.add(move, cubiesToMove, far ? cube.inverseTurn(turn) : turn, axis(face));
+    }
+
+    private static Point3D axis(int face) {
+        switch (face) {
+            case 0: case 5: return Rotate.Y_AXIS;
+            case 1: case 3: return Rotate.X_AXIS;
+            default: return Rotate.Z_AXIS;
+        }
     }
 }
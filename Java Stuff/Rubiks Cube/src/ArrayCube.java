@@ -1,18 +1,33 @@
 import java.util.*;
+import java.util.function.IntConsumer;
 
 public class ArrayCube implements Cube{
     Colour[][][] faceColours;
-    enum Band{TOP,BOTTOM,LEFT,RIGHT}
+    private static final int[] OPPOSITE = {5,3,4,1,2,0};
+    //for x, y and z: the face each one turns like, the 4 faces going round it in the order a turn moves them, and
+    //how many quarter turns each of those gets on its way to the next
+    private static final int[] ROTATION_FACES = {3,0,2};
+    private static final int[][] ROTATION_SIDES = {{2,0,4,5},{1,4,3,2},{1,0,3,5}};
+    private static final int[][] ROTATION_SIDE_TURNS = {{0,2,2,0},{0,0,0,0},{1,1,1,1}};
     Colour[] colourList;
     Map<Colour,Integer> colourIndex;
     int n;
+    private final MoveTable table;
+    private final ChangedStickers changed;
+    private long hash;
+    //the hash is only kept up to date once something has asked for it, like PackedCube's
+    private boolean hashing;
+    //spare colours for permute, so applying an algorithm doesn't allocate
+    private Colour[] scratch;
 
     boolean nextMoveIsWide;
 
     public ArrayCube(int n) {
         this.n = n;
         nextMoveIsWide = false;
-        faceColours = new Colour[6][n][n]; //change this line if we want to extend to larger cubes.
+        faceColours = new Colour[6][n][n];
+        table = MoveTable.forSize(n);
+        changed = new ChangedStickers(6 * n * n);
         //net view order is white,orange,green,red,blue,yellow
         colourList = new Colour[]{Colour.WHITE, Colour.ORANGE, Colour.GREEN, Colour.RED, Colour.BLUE, Colour.YELLOW};
         colourIndex = new HashMap<>();
@@ -32,21 +47,9 @@ public class ArrayCube implements Cube{
     }
 
     public String toString(){
-        String[] rows = new String[9];
-        rows[0] = String.format("%13s",String.format("%s%s%s",emoji(faceColours[0][0][0]),emoji(faceColours[0][0][1]),emoji(faceColours[0][0][2]))).replaceAll("\u200b","");
-        rows[1] = String.format("%13s",String.format("%s%s%s",emoji(faceColours[0][1][0]),emoji(faceColours[0][1][1]),emoji(faceColours[0][1][2]))).replaceAll("\u200b","");
-        rows[2] = String.format("%13s",String.format("%s%s%s",emoji(faceColours[0][2][0]),emoji(faceColours[0][2][1]),emoji(faceColours[0][2][2]))).replaceAll("\u200b","");
-        rows[3] = String.format("%s%s%s %s%s%s %s%s%s %s%s%s",emoji(faceColours[1][0][0]),emoji(faceColours[1][0][1]),emoji(faceColours[1][0][2]),emoji(faceColours[2][0][0]),emoji(faceColours[2][0][1]),emoji(faceColours[2][0][2]),emoji(faceColours[3][0][0]),emoji(faceColours[3][0][1]),emoji(faceColours[3][0][2]),emoji(faceColours[4][0][0]),emoji(faceColours[4][0][1]),emoji(faceColours[4][0][2])).replaceAll("\u200b","");
-        rows[4] = String.format("%s%s%s %s%s%s %s%s%s %s%s%s",emoji(faceColours[1][1][0]),emoji(faceColours[1][1][1]),emoji(faceColours[1][1][2]),emoji(faceColours[2][1][0]),emoji(faceColours[2][1][1]),emoji(faceColours[2][1][2]),emoji(faceColours[3][1][0]),emoji(faceColours[3][1][1]),emoji(faceColours[3][1][2]),emoji(faceColours[4][1][0]),emoji(faceColours[4][1][1]),emoji(faceColours[4][1][2])).replaceAll("\u200b","");
-        rows[5] = String.format("%s%s%s %s%s%s %s%s%s %s%s%s",emoji(faceColours[1][2][0]),emoji(faceColours[1][2][1]),emoji(faceColours[1][2][2]),emoji(faceColours[2][2][0]),emoji(faceColours[2][2][1]),emoji(faceColours[2][2][2]),emoji(faceColours[3][2][0]),emoji(faceColours[3][2][1]),emoji(faceColours[3][2][2]),emoji(faceColours[4][2][0]),emoji(faceColours[4][2][1]),emoji(faceColours[4][2][2])).replaceAll("\u200b","");
-        rows[6] = String.format("%13s",String.format("%s%s%s",emoji(faceColours[5][0][0]),emoji(faceColours[5][0][1]),emoji(faceColours[5][0][2]))).replaceAll("\u200b","");
-        rows[7] = String.format("%13s",String.format("%s%s%s",emoji(faceColours[5][1][0]),emoji(faceColours[5][1][1]),emoji(faceColours[5][1][2]))).replaceAll("\u200b","");
-        rows[8] = String.format("%14s",String.format("%s%s%s%n",emoji(faceColours[5][2][0]),emoji(faceColours[5][2][1]),emoji(faceColours[5][2][2]))).replaceAll("\u200b","");
-        return String.join("\n",rows);
+        return Facelets.netString(this, n, true);
     }
 
-
-
     public static void main(String[] args) {
         Cube cube = new ArrayCube(3);
         System.out.println(cube.shuffle(false,20));
@@ -85,196 +88,221 @@ public class ArrayCube implements Cube{
         return null;
     }
 
-    private void turnFace(Turn turn,int front,int[] sides, Band[] bands) {
-        int turns = getTurns(turn);
+    private void turnLayer(int turns, int face, int layer) {
+        //turns one layer of the given face (0 being the face itself): the ring of 4n stickers going round it through the
+        //4-cycles MoveTable worked out for it, plus a whole face turned in place when it is the first or last layer
+        int index = face * n + layer;
+        int[] moved = table.layers[index], faces = table.faces[index], rows = table.rows[index], cols = table.cols[index];
+        changed.add(moved);
+        //the keys of the stickers going round are XORed out before the turn and the new ones back in after
+        if (hashing) hash ^= keys(moved);
+        if (layer == 0) turnFaceTiles(turnOf(turns), face);
+        if (layer == n - 1) turnFaceTiles(inverseTurn(turnOf(turns)), OPPOSITE[face]);
         Colour buffer;
-        int[][] bandCoordinates = new int[4*n][3];
-        //turn the colours on the front face first
-        turnFaceTiles(turn,front);
-        //now turn the edges
-        if (bands.length != 4) throw new RuntimeException("bands was the wrong size");
-        for (int k = 0; k < turns; k ++) {
-            //this block of code is conceptually annoying
-            //when you rotate a side of a cube, there are 3 pieces on each of the attached sides which also move in a circuit of length 12, and for this step, I lay those pieces' coordinates out in the order they appear in the circuit.
-            for (int j = 0; j < 4; j++) {
-                switch (bands[j]) {
-                    case TOP:
-                        for (int l = 0; l < n; l++) {
-                            bandCoordinates[n * j + l][0] = sides[j];
-                            bandCoordinates[n * j + l][1] = 0;
-                            bandCoordinates[n * j + l][2] = n - l - 1;
-                        }
-                        break;
-                    case BOTTOM:
-                        for (int l = 0; l < n; l++) {
-                            bandCoordinates[n * j + l][0] = sides[j];
-                            bandCoordinates[n * j + l][1] = n-1;
-                            bandCoordinates[n * j + l][2] = l;
-                        }
-                        break;
-                    case LEFT:
-                        for (int l = 0; l < n; l++) {
-                            bandCoordinates[n * j + l][0] = sides[j];
-                            bandCoordinates[n * j + l][1] = l;
-                            bandCoordinates[n * j + l][2] = 0;
-                        }
-                        break;
-                    case RIGHT:
-                        for (int l = 0; l < n; l++) {
-                            bandCoordinates[n * j + l][0] = sides[j];
-                            bandCoordinates[n * j + l][1] = n-l-1;
-                            bandCoordinates[n * j + l][2] = n-1;
-                        }
-                        break;
-
-                }
-                checkWide(turn,front);
-            }
-            for (int i = 0; i < n; i++) {
-                buffer = faceColours[bandCoordinates[i][0]][bandCoordinates[i][1]][bandCoordinates[i][2]];
-                faceColours[bandCoordinates[i][0]][bandCoordinates[i][1]][bandCoordinates[i][2]] = faceColours[bandCoordinates[i+3*n][0]][bandCoordinates[i+3*n][1]][bandCoordinates[i+3*n][2]];
-                faceColours[bandCoordinates[i+3*n][0]][bandCoordinates[i+3*n][1]][bandCoordinates[i+3*n][2]] = faceColours[bandCoordinates[i+2*n][0]][bandCoordinates[i+2*n][1]][bandCoordinates[i+2*n][2]];
-                faceColours[bandCoordinates[i+2*n][0]][bandCoordinates[i+2*n][1]][bandCoordinates[i+2*n][2]] = faceColours[bandCoordinates[i+n][0]][bandCoordinates[i+n][1]][bandCoordinates[i+n][2]];
-                faceColours[bandCoordinates[i+n][0]][bandCoordinates[i+n][1]][bandCoordinates[i+n][2]] = buffer;
+        //one pass whatever the turn: a quarter turn moves each sticker on to the next in its cycle, a half turn swaps
+        //opposite ones and an anticlockwise turn goes round the other way
+        for (int i = 0; i < faces.length; i += 4) {
+            Colour[] row0 = faceColours[faces[i]][rows[i]], row1 = faceColours[faces[i+1]][rows[i+1]];
+            Colour[] row2 = faceColours[faces[i+2]][rows[i+2]], row3 = faceColours[faces[i+3]][rows[i+3]];
+            int c0 = cols[i], c1 = cols[i+1], c2 = cols[i+2], c3 = cols[i+3];
+            switch (turns) {
+                case 1:
+                    buffer = row3[c3];
+                    row3[c3] = row2[c2];
+                    row2[c2] = row1[c1];
+                    row1[c1] = row0[c0];
+                    row0[c0] = buffer;
+                    break;
+                case 2:
+                    buffer = row0[c0];
+                    row0[c0] = row2[c2];
+                    row2[c2] = buffer;
+                    buffer = row1[c1];
+                    row1[c1] = row3[c3];
+                    row3[c3] = buffer;
+                    break;
+                default:
+                    buffer = row0[c0];
+                    row0[c0] = row1[c1];
+                    row1[c1] = row2[c2];
+                    row2[c2] = row3[c3];
+                    row3[c3] = buffer;
+                    break;
             }
         }
+        if (hashing) hash ^= keys(moved);
     }
 
+    private long keys(int[] stickers) {
+        long[] keys = table.zobrist;
+        long hash = 0;
+        for (int sticker : stickers) {
+            int face = sticker / (n * n), row = sticker % (n * n) / n, col = sticker % n;
+            hash ^= keys[sticker * 6 + PackedCube.COLOUR_INDEX[faceColours[face][row][col].ordinal()]];
+        }
+        return hash;
+    }
 
-    public void doAlgorithm(String input) throws IllegalArgumentException {
-        StringTokenizer st = new StringTokenizer(input," ");
-        String next;
-        Turn turn;
-        while (st.hasMoreTokens()) {
-            next = st.nextToken();
-            switch (next.charAt(next.length()-1)) {
-                case '2':
-                    turn = Turn.TWO; break;
-                case '\'':
-                    turn = Turn.ANTICLOCKWISE; break;
-                default:
-                    turn = Turn.CLOCKWISE;
-            }
+    void permute(int[] changedStickers, int[] sources) {
+        //every sticker in changedStickers[i] gets the colour that was at sources[i], which is how Algorithm applies
+        if (scratch == null) scratch = new Colour[6 * n * n];
+        int faceSize = n * n;
+        for (int i = 0; i < sources.length; i++) {
+            int sticker = sources[i];
+            scratch[i] = faceColours[sticker / faceSize][sticker % faceSize / n][sticker % n];
+        }
+        if (hashing) hash ^= keys(changedStickers);
+        for (int i = 0; i < changedStickers.length; i++) {
+            int sticker = changedStickers[i];
+            faceColours[sticker / faceSize][sticker % faceSize / n][sticker % n] = scratch[i];
+        }
+        if (hashing) hash ^= keys(changedStickers);
+        changed.add(changedStickers);
+    }
 
-            switch (next.charAt(0)) {
-                case 'U': Up(turn); break;
-                case 'D': Down(turn); break;
-                case 'F': Front(turn); break;
-                case 'B': Back(turn); break;
-                case 'L': Left(turn); break;
-                case 'R': Right(turn); break;
-                case 'x': x(turn); break;
-                case 'y': y(turn); break;
-                case 'z': z(turn); break;
-                case 'u': nextMoveIsWide = true; Up(turn); break;
-                case 'r': nextMoveIsWide = true; Right(turn); break;
-                case 'l': nextMoveIsWide = true; Left(turn); break;
-                case 'f': nextMoveIsWide = true; Front(turn); break;
-                case 'b': nextMoveIsWide = true; Back(turn); break;
-                case 'd': nextMoveIsWide = true; Down(turn); break;
-            }
+    private void turnLayers(int face, int from, int to, Turn turn) {
+        int turns = getTurns(turn);
+        if (turns == 0) return;
+        long startTime = Metrics.start(Metrics.Operation.MOVE);
+        CubeEvents.MoveEvent event = CubeEvents.beginMove();
+        for (int layer = from; layer <= to; layer++) {
+            turnLayer(turns, face, layer);
         }
+        Metrics.record(Metrics.Operation.MOVE, startTime);
+        CubeEvents.commitMove(event, face, from, to, turns, "ArrayCube");
     }
 
-    private void checkWide(Turn turn,int face) {
-        if (nextMoveIsWide) {
+    private void turnFace(Turn turn, int face) {
+        //a wide move takes the next layer in with the face
+        int to = 0;
+        if (nextMoveIsWide && getTurns(turn) != 0) {
             nextMoveIsWide = false;
-            switch (face) {
-                case 0: E(inverseTurn(turn)); break;
-                case 1: M(turn); break;
-                case 2: S(turn); break;
-                case 3: M(inverseTurn(turn)); break;
-                case 4: S(inverseTurn(turn)); break;
-                case 5: E(turn); break;
-            }
+            to = Math.min(1, n - 1);
+        }
+        turnLayers(face, 0, to, turn);
+    }
+
+    private Turn turnOf(int turns) {
+        switch (turns) {
+            case 1: return Turn.CLOCKWISE;
+            case 2: return Turn.TWO;
+            case 3: return Turn.ANTICLOCKWISE;
+            default: return Turn.NONE;
         }
     }
 
+    public void apply(Move move) {
+        turnLayers(move.face(), move.from(n), move.to(n), move.turn());
+    }
+
+    public void doAlgorithm(String input) throws IllegalArgumentException {
+        long startTime = Metrics.start(Metrics.Operation.ALGORITHM);
+        CubeEvents.AlgorithmEvent event = CubeEvents.beginAlgorithm();
+        //compiled (and simplified) once, and cached, like PackedCube's, so it's one pass over the stickers it moves
+        Algorithm.compile(input, n).applyTo(this);
+        Metrics.record(Metrics.Operation.ALGORITHM, startTime);
+        CubeEvents.commitAlgorithm(event, input, n, "ArrayCube");
+    }
+
     public void Up(Turn turn) {
-        int frontFace = 0;
-        int[] sideFaces = new int[]{1,4,3,2};
-        Band[] bands = new Band[]{Band.TOP,Band.TOP,Band.TOP,Band.TOP};
-        turnFace(turn,frontFace,sideFaces,bands);
+        turnFace(turn,0);
     }
 
     public void Down(Turn turn) {
-        turnFace(turn,5,new int[]{1,2,3,4},new Band[]{Band.BOTTOM,Band.BOTTOM,Band.BOTTOM,Band.BOTTOM});
+        turnFace(turn,5);
     }
 
     public void Left(Turn turn) {
-        turnFace(turn,1,new int[]{0,2,5,4},new Band[]{Band.LEFT,Band.LEFT,Band.LEFT,Band.RIGHT});
+        turnFace(turn,1);
     }
 
     public void Right(Turn turn) {
-        turnFace(turn,3,new int[]{5,2,0,4},new Band[]{Band.RIGHT,Band.RIGHT,Band.RIGHT,Band.LEFT});
+        turnFace(turn,3);
     }
 
     public void Front(Turn turn) {
-        turnFace(turn,2,new int[]{1,0,3,5},new Band[]{Band.RIGHT,Band.BOTTOM,Band.LEFT,Band.TOP});
+        turnFace(turn,2);
     }
 
     public void Back(Turn turn) {
-        turnFace(turn,4,new int[]{5,3,0,1},new Band[]{Band.BOTTOM,Band.RIGHT,Band.TOP,Band.LEFT});
+        turnFace(turn,4);
     }
 
     private void turnFaceTiles(Turn turn,int face) {
+        //goes round the face one ring at a time from the outside in
         Colour buffer;
-        if (turn == Turn.ANTICLOCKWISE) {
-            for (int i = 0; i < n - 1; i++) {
-                buffer = faceColours[face][i][n-1];
-                faceColours[face][i][n-1] = faceColours[face][n - 1][n-i-1];
-                faceColours[face][n - 1][n-i-1] = faceColours[face][n - i - 1][0];
-                faceColours[face][n - i - 1][0] = faceColours[face][0][i];
-                faceColours[face][0][i] = buffer;
-            }
-        } else if (turn != Turn.NONE) {
-            for (int i = 0; i < n - 1; i++) {
-                buffer = faceColours[face][0][i];
-                faceColours[face][0][i] = faceColours[face][n - i - 1][0];
-                faceColours[face][n - i - 1][0] = faceColours[face][n - 1][n - i - 1];
-                faceColours[face][n - 1][n - i - 1] = faceColours[face][i][n - 1];
-                faceColours[face][i][n - 1] = buffer;
+        Colour[][] tiles = faceColours[face];
+        for (int r = 0; r < n / 2; r++) {
+            int far = n - 1 - r;
+            if (turn == Turn.ANTICLOCKWISE) {
+                for (int i = r; i < far; i++) {
+                    buffer = tiles[i][far];
+                    tiles[i][far] = tiles[far][n - i - 1];
+                    tiles[far][n - i - 1] = tiles[n - i - 1][r];
+                    tiles[n - i - 1][r] = tiles[r][i];
+                    tiles[r][i] = buffer;
+                }
+            } else if (turn == Turn.TWO) {
+                //each tile swaps with the one opposite it, in the same pass
+                for (int i = r; i < far; i++) {
+                    buffer = tiles[r][i];
+                    tiles[r][i] = tiles[far][n - i - 1];
+                    tiles[far][n - i - 1] = buffer;
+                    buffer = tiles[n - i - 1][r];
+                    tiles[n - i - 1][r] = tiles[i][far];
+                    tiles[i][far] = buffer;
+                }
+            } else if (turn == Turn.CLOCKWISE) {
+                for (int i = r; i < far; i++) {
+                    buffer = tiles[r][i];
+                    tiles[r][i] = tiles[n - i - 1][r];
+                    tiles[n - i - 1][r] = tiles[far][n - i - 1];
+                    tiles[far][n - i - 1] = tiles[i][far];
+                    tiles[i][far] = buffer;
+                }
             }
-            if (turn == Turn.TWO) turnFaceTiles(Turn.CLOCKWISE,face);
         }
     }
 
-    private void turnCube(Turn turn, int front, int back, int[] sides,Turn[] rotations) {
+    private void turnCube(Turn turn, int axis) {
         int turns = getTurns(turn);
-        if (sides.length != 4 || rotations.length != 4) throw new RuntimeException("sides of rotations were the wrong size");
-        Colour buffer;
-        for (int k = 0; k < turns; k++) {
-            turnFaceTiles(Turn.CLOCKWISE, front);
-            turnFaceTiles(Turn.ANTICLOCKWISE, back);
-            for (int i = 0; i < 4; i++) {
-                turnFaceTiles(rotations[i], sides[i]);
-            }
-            for (int i = 0; i < n; i++) {
-                for (int j = 0; j < n; j++) {
-                    buffer = faceColours[sides[0]][i][j];
-                    faceColours[sides[0]][i][j] = faceColours[sides[3]][i][j];
-                    faceColours[sides[3]][i][j] = faceColours[sides[2]][i][j];
-                    faceColours[sides[2]][i][j] = faceColours[sides[1]][i][j];
-                    faceColours[sides[1]][i][j] = buffer;
-                }
+        long startTime = Metrics.start(Metrics.Operation.MOVE);
+        CubeEvents.MoveEvent event = CubeEvents.beginMove();
+        int front = ROTATION_FACES[axis], back = OPPOSITE[front];
+        int[] sides = ROTATION_SIDES[axis], sideTurns = ROTATION_SIDE_TURNS[axis];
+        turnFaceTiles(turnOf(turns), front);
+        turnFaceTiles(turnOf((4 - turns) & 3), back);
+        //each side is turned by however much it would have been on every side it passes through, all at once, and
+        //then the whole faces are moved round by swapping the arrays rather than copying them
+        for (int i = 0; i < 4; i++) {
+            int amount = 0;
+            for (int k = 0; k < turns; k++) {
+                amount += sideTurns[(i + k) & 3];
             }
-
+            turnFaceTiles(turnOf(amount & 3), sides[i]);
         }
-
+        Colour[][] side0 = faceColours[sides[0]], side1 = faceColours[sides[1]], side2 = faceColours[sides[2]], side3 = faceColours[sides[3]];
+        faceColours[sides[turns & 3]] = side0;
+        faceColours[sides[(1 + turns) & 3]] = side1;
+        faceColours[sides[(2 + turns) & 3]] = side2;
+        faceColours[sides[(3 + turns) & 3]] = side3;
+        stickersChanged();
+        Metrics.record(Metrics.Operation.MOVE, startTime);
+        CubeEvents.commitMove(event, front, 0, n - 1, turns, "ArrayCube");
     }
     public void x(Turn turn) {
-        turnCube(turn,3,1,new int[]{2,0,4,5},new Turn[]{Turn.NONE,Turn.TWO,Turn.TWO,Turn.NONE});
+        turnCube(turn, 0);
     }
     public void y(Turn turn) {
-        turnCube(turn,0,5,new int[]{1,4,3,2},new Turn[]{Turn.NONE,Turn.NONE,Turn.NONE,Turn.NONE});
+        turnCube(turn, 1);
     }
     public void z(Turn turn) {
-        turnCube(turn,2,4,new int[]{1,0,3,5},new Turn[]{Turn.CLOCKWISE,Turn.CLOCKWISE,Turn.CLOCKWISE,Turn.CLOCKWISE});
+        turnCube(turn, 2);
     }
 
-    public void M(Turn turn) {x(inverseTurn(turn));Left(inverseTurn(turn));Right(turn);}
-    public void E(Turn turn) {y(inverseTurn(turn));Up(turn);Down(inverseTurn(turn));}
-    public void S(Turn turn) {z(turn);Front(inverseTurn(turn));Back(turn);}
+    public void M(Turn turn) {turnLayers(1,1,n-2,turn);}
+    public void E(Turn turn) {turnLayers(5,1,n-2,turn);}
+    public void S(Turn turn) {turnLayers(2,1,n-2,turn);}
 
 
     public String turnByFaceNumber(int face,Turn turn) {
@@ -298,35 +326,76 @@ public class ArrayCube implements Cube{
                 }
             }
         }
+        stickersChanged();
     }
 
-    public String shuffle(boolean giveSolution,int shuffleLength) {
-        reset();
-        Random r = new Random();
-        ArrayList<String> history = new ArrayList<>();
-        ArrayList<String> solution = new ArrayList<>();
-        Turn[] turnTypes = new Turn[]{Turn.CLOCKWISE,Turn.ANTICLOCKWISE,Turn.TWO};
-        String returnString;
-        int lastMoved = -1;
-        int num1,num2;
-        for (int i = 0; i < shuffleLength; i++) {
-            num1 = r.nextInt(6);
-            num2 = r.nextInt(3);
-            if (num1 == lastMoved) continue;
-            lastMoved = num1;
-            String str2,inverseStr2;
-            switch (turnTypes[num2]) {
-                case ANTICLOCKWISE: str2 = "'";inverseStr2=""; break;
-                case TWO: str2 = "2"; inverseStr2="2"; break;
-                default: str2 = ""; inverseStr2="'"; break;
+    public void getStickers(byte[] stickers) {
+        for (int face = 0, i = 0; face < 6; face++) {
+            for (int row = 0; row < n; row++) {
+                for (int col = 0; col < n; col++) {
+                    stickers[i++] = PackedCube.COLOUR_INDEX[faceColours[face][row][col].ordinal()];
+                }
             }
+        }
+    }
 
-            returnString = turnByFaceNumber(num1,turnTypes[num2]);
-            history.add(returnString + str2);
-            solution.add(0,returnString + inverseStr2);
+    public void setStickers(byte[] stickers) {
+        for (int face = 0, i = 0; face < 6; face++) {
+            for (int row = 0; row < n; row++) {
+                for (int col = 0; col < n; col++) {
+                    faceColours[face][row][col] = PackedCube.COLOURS[stickers[i++]];
+                }
+            }
         }
-        if (giveSolution) return String.join(" ",history) + "\n" + String.join(" ",solution);
-        return String.join(" ",history);
+        stickersChanged();
+    }
+
+    void stickersChanged() {
+        //for anything that writes to faceColours directly instead of turning the cube
+        if (hashing) hash = fullHash();
+        changed.addAll();
+    }
+
+    private long fullHash() {
+        long[] keys = table.zobrist;
+        long hash = 0;
+        for (int face = 0; face < 6; face++) {
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    hash ^= keys[((face * n + i) * n + j) * 6 + PackedCube.COLOUR_INDEX[faceColours[face][i][j].ordinal()]];
+                }
+            }
+        }
+        return hash;
+    }
+
+    public long stateHash() {
+        if (!hashing) {
+            hash = fullHash();
+            hashing = true;
+        }
+        return hash;
+    }
+
+    public boolean equals(Object o) {
+        if (!(o instanceof ArrayCube)) return false;
+        ArrayCube other = (ArrayCube) o;
+        if (n != other.n) return false;
+        if (hashing && other.hashing && hash != other.hash) return false;
+        return Arrays.deepEquals(faceColours, other.faceColours);
+    }
+
+    public int hashCode() {
+        long hash = stateHash();
+        return (int) (hash ^ hash >>> 32);
+    }
+
+    public String shuffle(boolean giveSolution,int shuffleLength) {
+        return ScrambleGenerator.shuffle(this, giveSolution, shuffleLength);
+    }
+
+    public void drainChangedStickers(IntConsumer consumer) {
+        changed.drain(consumer);
     }
 
     public Colour getFaceColour(int x, int y, int z, int face) {
@@ -0,0 +1,125 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+public class BatchApply {
+    /**
+     * Applies a file of algorithms without the GUI and writes the facelet string (see Facelets) each one ends on, one
+     * line out for every line in. A line is a starting state and an algorithm separated by a tab, where the state is
+     * a facelet string, or nothing for a solved cube of the default size. A line without a tab is just an algorithm
+     * done to a solved cube.
+     *
+     * The file is read through a buffered reader a chunk of lines at a time rather than all at once, and chunks are
+     * handed to an OrderedPipeline of threads, each with its own PackedCube for every size it meets, so nothing is
+     * shared between them, and the main thread writes the chunks out in order as they finish. A line that can't be applied gets "error:" and the reason instead of a state.
+     */
+    //lines to a chunk, enough that handing a chunk to a thread costs little next to doing it
+    static final int CHUNK_SIZE = 1024;
+
+    final int n;
+    final int threads;
+    //cubes[n] is this thread's cube of size n, made the first time it's needed
+    private final ThreadLocal<PackedCube[]> cubes = ThreadLocal.withInitial(() -> new PackedCube[0]);
+
+    public BatchApply(int n, int threads) {
+        if (n < 1) throw new IllegalArgumentException("the cube has to be at least 1x1");
+        if (threads < 1) throw new IllegalArgumentException("need at least one thread");
+        this.n = n;
+        this.threads = threads;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.out.println("usage: BatchApply algorithms-file states-file [n] [threads]");
+            return;
+        }
+        int n = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        BatchApply batch = new BatchApply(n, threads);
+        long startTime = System.nanoTime();
+        long count;
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(args[0]), StandardCharsets.UTF_8);
+             BufferedWriter writer = Files.newBufferedWriter(Paths.get(args[1]), StandardCharsets.UTF_8)) {
+            count = batch.applyAll(reader, writer);
+        }
+        long elapsed = System.nanoTime() - startTime;
+        System.err.printf("%d applied in %dms, %.1f a second%n", count, elapsed / 1000000, count * 1e9 / elapsed);
+    }
+
+    private PackedCube cube(int size) {
+        PackedCube[] forThread = cubes.get();
+        if (size >= forThread.length) {
+            forThread = Arrays.copyOf(forThread, size + 1);
+            cubes.set(forThread);
+        }
+        if (forThread[size] == null) forThread[size] = new PackedCube(size);
+        return forThread[size];
+    }
+
+    void applyLine(String line, StringBuilder out) {
+        //the state the line ends on, added to out
+        int tab = line.indexOf('\t');
+        String state = tab < 0 ? "" : line.substring(0, tab).trim();
+        String algorithm = line.substring(tab + 1).trim();
+        int start = out.length();
+        try {
+            PackedCube cube = cube(state.isEmpty() ? n : Facelets.sizeOf(state));
+            if (state.isEmpty()) {
+                cube.reset();
+            } else {
+                Facelets.load(state, cube);
+            }
+            //each line's algorithm is usually different, so there is no point compiling and caching it like
+            //doAlgorithm does, and every thread would only be filling up the one cache they share
+            for (Move move : Move.parseAll(algorithm)) {
+                cube.apply(move);
+            }
+            Facelets.append(cube, cube.n, out);
+        } catch (IOException e) {
+            //StringBuilder never throws
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            out.setLength(start);
+            out.append("error: ").append(e.getMessage());
+        }
+    }
+
+    String applyChunk(String[] lines) {
+        StringBuilder out = new StringBuilder(lines.length * (6 * n * n + 1));
+        for (String line : lines) {
+            applyLine(line, out);
+            out.append('\n');
+        }
+        return out.toString();
+    }
+
+    long applyAll(BufferedReader lines, Writer states) throws IOException, InterruptedException {
+        long count = 0;
+        try (OrderedPipeline<String> pipeline = new OrderedPipeline<>(threads, "could not apply a chunk of algorithms", states::write)) {
+            String[] chunk = new String[CHUNK_SIZE];
+            int size = 0;
+            String line;
+            while ((line = lines.readLine()) != null) {
+                chunk[size++] = line;
+                count++;
+                if (size < CHUNK_SIZE) continue;
+                String[] full = chunk;
+                pipeline.submit(() -> applyChunk(full));
+                chunk = new String[CHUNK_SIZE];
+                size = 0;
+            }
+            if (size > 0) {
+                String[] last = Arrays.copyOf(chunk, size);
+                pipeline.submit(() -> applyChunk(last));
+            }
+            pipeline.finish();
+        }
+        return count;
+    }
+}
@@ -0,0 +1,108 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+public class BatchSolver {
+    /**
+     * Solves a file of cube states, one on each line, and writes a solution for each one on the same line of the
+     * output. A line can be an algorithm (done to a solved cube) or a facelet string as read by Facelets. States are
+     * solved on an OrderedPipeline of threads, each with its own solver, while the main thread reads ahead and
+     * writes the solutions out in order as they finish. The optimal solver is the exception: it solves one state at a
+     * time, searching it on all the threads.
+     *
+     * Memory stays the same however long the file is, as the pipeline only lets a couple of states per thread wait, and
+     * solve times go into a LatencyHistogram of fixed size rather than a list, for the percentiles printed at the end.
+     * A line that can't be solved gets "error:" and the reason instead of a solution, and the rest carry on.
+     */
+    enum Method {TWO_PHASE, OPTIMAL, POCKET}
+
+    final Method method;
+    final int threads;
+    //states solved at once, which for OPTIMAL is one, as each solve searches on threads of its own
+    final int workers;
+    final LatencyHistogram latencies = new LatencyHistogram();
+    private final ThreadLocal<Function<Cube, String>> solvers;
+
+    public BatchSolver(Method method, int threads) {
+        if (threads < 1) throw new IllegalArgumentException("need at least one thread");
+        this.method = method;
+        this.threads = threads;
+        //an optimal search is split over a pool of its own, so rather than that many searches each asking the common
+        //pool for every core, one state is solved at a time on a pool of the threads asked for
+        workers = method == Method.OPTIMAL ? 1 : threads;
+        ForkJoinPool search = method == Method.OPTIMAL ? new ForkJoinPool(threads) : null;
+        solvers = ThreadLocal.withInitial(() -> {
+            switch (method) {
+                case OPTIMAL:
+                    OptimalSolver optimal = new OptimalSolver(OptimalTables.get(), search);
+                    return optimal::solve;
+                case POCKET:
+                    PocketSolver pocket = PocketSolver.get();
+                    return pocket::solve;
+                default:
+                    TwoPhaseSolver twoPhase = new TwoPhaseSolver();
+                    return twoPhase::solve;
+            }
+        });
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.out.println("usage: BatchSolver scrambles-file solutions-file [two_phase|optimal|pocket] [threads]");
+            return;
+        }
+        Method method = args.length > 2 ? Method.valueOf(args[2].toUpperCase()) : Method.TWO_PHASE;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        BatchSolver solver = new BatchSolver(method, threads);
+        long startTime = System.nanoTime();
+        long count;
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(args[0]), StandardCharsets.UTF_8);
+             BufferedWriter writer = Files.newBufferedWriter(Paths.get(args[1]), StandardCharsets.UTF_8)) {
+            count = solver.solveAll(reader, writer);
+        }
+        long elapsed = System.nanoTime() - startTime;
+        System.err.printf("%d solved in %dms, %.1f a second%n", count, elapsed / 1000000, count * 1e9 / elapsed);
+        System.err.println(solver.latencies);
+    }
+
+    Cube readState(String line) throws IllegalArgumentException {
+        int n = method == Method.POCKET ? 2 : 3;
+        if (line.length() == 6 * n * n && line.chars().allMatch(c -> Facelets.ORDER.indexOf(c) >= 0)) return Facelets.parse(line);
+        Cube cube = new PackedCube(n);
+        if (!line.isEmpty()) cube.doAlgorithm(line);
+        return cube;
+    }
+
+    String solveLine(String line) {
+        long startTime = System.nanoTime();
+        try {
+            return solvers.get().apply(readState(line));
+        } catch (RuntimeException e) {
+            return "error: " + e.getMessage();
+        } finally {
+            latencies.record(System.nanoTime() - startTime);
+        }
+    }
+
+    long solveAll(BufferedReader states, Writer solutions) throws IOException, InterruptedException {
+        long count = 0;
+        try (OrderedPipeline<String> pipeline = new OrderedPipeline<>(workers, "could not solve a state", solution -> writeLine(solutions, solution))) {
+            String line;
+            while ((line = states.readLine()) != null) {
+                String state = line.trim();
+                pipeline.submit(() -> solveLine(state));
+                count++;
+            }
+            pipeline.finish();
+        }
+        return count;
+    }
+
+    private static void writeLine(Writer out, String line) throws IOException {
+        out.write(line);
+        out.write('\n');
+    }
+}
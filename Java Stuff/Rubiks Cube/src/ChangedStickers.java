@@ -0,0 +1,68 @@
+import java.util.function.IntConsumer;
+
+public class ChangedStickers {
+    /**
+     * Keeps track of which stickers (by StickerMap index) a cube has moved since the view last asked, so that only the
+     * cubies under them need redrawing. Moves don't write anything per sticker, they just hand over the arrays of
+     * sticker indices they already have (a MoveTable layer or an Algorithm's changed list), and the work of going
+     * through them is left until drain(). Once more has been added than there are stickers it stops keeping the
+     * arrays and just says everything changed.
+     */
+    private final int size;
+    private final int[][] chunks;
+    private final boolean[] seen;
+    private int chunkCount;
+    private int total;
+    private boolean all;
+
+    public ChangedStickers(int size) {
+        this.size = size;
+        //one layer of any face is at least 4 stickers, so this many chunks always covers more than size stickers
+        chunks = new int[size / 4 + 1][];
+        seen = new boolean[size];
+    }
+
+    public void add(int[] stickers) {
+        if (all || stickers.length == 0) return;
+        total += stickers.length;
+        if (total > size || chunkCount == chunks.length) {
+            addAll();
+            return;
+        }
+        chunks[chunkCount++] = stickers;
+    }
+
+    public void addAll() {
+        all = true;
+        for (int i = 0; i < chunkCount; i++) {
+            chunks[i] = null;
+        }
+        chunkCount = 0;
+    }
+
+    public void drain(IntConsumer consumer) {
+        //gives each changed sticker once, and forgets them all afterwards
+        if (all) {
+            for (int i = 0; i < size; i++) {
+                consumer.accept(i);
+            }
+        } else {
+            for (int i = 0; i < chunkCount; i++) {
+                for (int sticker : chunks[i]) {
+                    if (seen[sticker]) continue;
+                    seen[sticker] = true;
+                    consumer.accept(sticker);
+                }
+            }
+            for (int i = 0; i < chunkCount; i++) {
+                for (int sticker : chunks[i]) {
+                    seen[sticker] = false;
+                }
+                chunks[i] = null;
+            }
+        }
+        chunkCount = 0;
+        total = 0;
+        all = false;
+    }
+}
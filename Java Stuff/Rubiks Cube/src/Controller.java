@@ -1,11 +1,12 @@
 import javafx.animation.AnimationTimer;
 import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.SimpleDoubleProperty;
-import javafx.geometry.Point3D;
 import javafx.scene.*;
 import javafx.scene.control.Button;
+import javafx.scene.control.Slider;
 import javafx.scene.control.TextField;
 import javafx.scene.control.ToggleButton;
+import javafx.scene.input.KeyCode;
 import javafx.scene.layout.Pane;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
@@ -13,6 +14,7 @@ import javafx.scene.text.Text;
 import javafx.scene.transform.Rotate;
 
 import java.util.ArrayList;
+import java.util.EnumSet;
 
 
 public class Controller {
@@ -20,7 +22,9 @@ public class Controller {
     public Pane viewPane;
     public Button uButton, lButton, fButton, rButton, dButton, bButton, xButton, yButton, zButton,mButton,eButton,sButton;
     public Button shuffleButton, algButton, resetButton, clearButton,camResetButton;
-    public Text shuffleText;
+    public Button undoButton, redoButton;
+    public Slider timelineSlider;
+    public Text shuffleText, timelineText;
     public TextField algTextBox;
     public ToggleButton acToggle, wideToggle;
     public String currentSuffix;
@@ -45,12 +49,36 @@ public class Controller {
     private Cube.Turn thisTurn;
 
     Animator a;
+    MoveScheduler scheduler;
+    MoveTimeline timeline;
+    //the keys that do a move, and the ones that undo, redo and seek, see setup
+    private static final EnumSet<KeyCode> MOVE_KEYS = EnumSet.of(KeyCode.U, KeyCode.R, KeyCode.L, KeyCode.F, KeyCode.B,
+            KeyCode.D, KeyCode.X, KeyCode.Y, KeyCode.Z, KeyCode.M, KeyCode.E, KeyCode.S);
+    private static final EnumSet<KeyCode> TIMELINE_KEYS = EnumSet.of(KeyCode.LEFT, KeyCode.RIGHT, KeyCode.HOME, KeyCode.END);
+    //set while the slider is being moved to match the timeline, rather than by hand
+    private boolean updatingSlider;
+
+    //the key press waiting for a frame, see keyPressed
+    private String inputKey;
+    private CubeEvents.InputEvent input;
+    private long inputTime;
+    private final AnimationTimer firstFrame = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            Metrics.record(Metrics.Operation.INPUT_TO_FRAME, inputTime);
+            CubeEvents.commitInput(input, inputKey);
+            inputKey = null;
+            input = null;
+            stop();
+        }
+    };
 
-    public void setup(int n, int boxSize,Scene s,int subSceneSize) {
+    public void setup(int n, int boxSize,Scene s,int subSceneSize,boolean drawStickers,int maxQueued) {
         this.n = n;
         this.boxSize = boxSize;
         this.scene = s;
         cube = new ArrayCube(n);
+        timeline = new MoveTimeline(cube, n);
         currentSuffix = "";
         wideSelected = false;
         thisTurn = Cube.Turn.CLOCKWISE;
@@ -60,11 +88,14 @@ public class Controller {
         for (int x = 0; x < n; x++) {
             for (int y = 0; y < n; y++) {
                 for (int z = 0; z < n; z++) {
-                    cubies[x][y][z] = new Cubie(x, y, z, group, n,cube);
+                    //the inside of the cube can never be seen, so it doesn't get cubies
+                    if (!isOnSurface(x, y, z)) continue;
+                    cubies[x][y][z] = drawStickers ? new StickerCubie(x, y, z, group, n, cube) : new TexturedCubie(x, y, z, group, n, cube);
                 }
             }
         }
         a = new Animator(this);
+        scheduler = new MoveScheduler(this, maxQueued);
 
         group.resetSpin();
         group.getChildren().add(new AmbientLight());
@@ -72,9 +103,9 @@ public class Controller {
         camera = new PerspectiveCamera(true);
         camera.translateXProperty().set(0);
         camera.translateYProperty().set(0);
-        camera.setTranslateZ(-1200);
+        camera.setTranslateZ(cameraDistance());
         camera.setNearClip(1);
-        camera.setFarClip(4000);
+        camera.setFarClip(-4 * cameraDistance());
 
 
         SubScene cubeScene = new SubScene(group, subSceneSize, subSceneSize, true, SceneAntialiasing.BALANCED);
@@ -129,33 +160,61 @@ public class Controller {
         sButton.setOnMouseClicked(event -> a.S(thisTurn));
 
         shuffleButton.setOnMouseClicked(event -> {
+            scheduler.finishAll();
             String shuffleString = cube.shuffle(false,20);
-            updateFaces();
+            //the timeline starts from the shuffled cube, which is where a solve starts
+            timeline.restart();
+            updateChanged();
             shuffleText.setText(shuffleString);
         });
 
         algButton.setOnMouseClicked(event -> {
+            scheduler.finishAll();
             try {
-                cube.doAlgorithm(algTextBox.getText());
+                timeline.doAlgorithm(algTextBox.getText());
             } catch (Exception e) {System.out.println("ERROR parsing string: "+algTextBox.getText() + "\n" + e);}
-            updateFaces();
+            updateChanged();
         });
 
         resetButton.setOnMouseClicked(event -> {
+            scheduler.finishAll();
             cube.reset();
+            timeline.restart();
             shuffleText.setText("");
-            updateFaces();
+            updateChanged();
         });
 
         camResetButton.setOnMouseClicked(event -> {
             group.resetSpin();
-            camera.setTranslateZ(-1200);
+            camera.setTranslateZ(cameraDistance());
         });
 
         clearButton.setOnMouseClicked(event -> algTextBox.setText(""));
 
+        undoButton.setOnMouseClicked(event -> undo());
+
+        redoButton.setOnMouseClicked(event -> redo());
+
+        timelineSlider.valueProperty().addListener((observable, oldValue, newValue) -> {
+            if (updatingSlider) return;
+            //jumps straight there without animating, however far it is
+            scheduler.finishAll();
+            timeline.seek((int) Math.round(newValue.doubleValue()));
+            updateChanged();
+        });
+
         scene.setOnKeyPressed(event -> {
             if (!algTextBox.isFocused()) {
+                if (TIMELINE_KEYS.contains(event.getCode())) {
+                    //the slider and the undo and redo buttons use the arrow keys themselves when they have the focus,
+                    //so the keys only go through the timeline otherwise, and aren't passed on to them after
+                    if (timelineFocused()) return;
+                    event.consume();
+                }
+                //only the keys that do something to the cube are timed, typing and the rest give no frame anything new
+                if (MOVE_KEYS.contains(event.getCode()) || TIMELINE_KEYS.contains(event.getCode())) {
+                    keyPressed(event.getCode().getName());
+                }
                 switch(event.getCode()) {
                     case SHIFT: acToggle.setSelected(true); currentSuffix = "'"; thisTurn = Cube.Turn.ANTICLOCKWISE; updateButtons(); break;
                     case CONTROL: wideToggle.setSelected(true); wideSelected = true; updateButtons();  break;
@@ -171,6 +230,10 @@ public class Controller {
                     case M: a.M(thisTurn); break;
                     case E: a.E(thisTurn); break;
                     case S: a.S(thisTurn); break;
+                    case LEFT: undo(); break;
+                    case RIGHT: redo(); break;
+                    case HOME: scheduler.finishAll(); timeline.seek(0); updateChanged(); break;
+                    case END: scheduler.finishAll(); timeline.seek(timeline.length()); updateChanged(); break;
                     case MINUS: moveCamera(-50); break;
                     case EQUALS: moveCamera(50); break;
 //                    case Q: animateSpin(cubies[], Cube.Turn.CLOCKWISE,Rotate.Y_AXIS);
@@ -189,6 +252,39 @@ public class Controller {
 
     }
 
+    private boolean timelineFocused() {
+        return timelineSlider.isFocused() || undoButton.isFocused() || redoButton.isFocused();
+    }
+
+    void keyPressed(String key) {
+        //times from the key press to the next frame, which is the first that can show what it did. Holding a key down
+        //repeats it faster than frames come, so only the first press before each frame counts
+        if (inputKey != null) return;
+        inputKey = key;
+        inputTime = Metrics.start(Metrics.Operation.INPUT_TO_FRAME);
+        input = CubeEvents.beginInput();
+        firstFrame.start();
+    }
+
+    void undo() {
+        //anything still animating is finished first, so the move being undone is the last one really done
+        scheduler.finishAll();
+        if (timeline.canUndo()) a.spin(timeline.undoMove(), timeline::undo);
+    }
+
+    void redo() {
+        scheduler.finishAll();
+        if (timeline.canRedo()) a.spin(timeline.redoMove(), timeline::redo);
+    }
+
+    void updateTimeline() {
+        updatingSlider = true;
+        timelineSlider.setMax(timeline.length());
+        timelineSlider.setValue(timeline.position());
+        updatingSlider = false;
+        timelineText.setText(timeline.position() + " / " + timeline.length());
+    }
+
     public void updateButtons() {
         uButton.setText((!wideSelected?"U":"u")+currentSuffix);
         fButton.setText((!wideSelected?"F":"f")+currentSuffix);
@@ -208,13 +304,44 @@ public class Controller {
     public void updateFaces() {
         for (int x = 0; x < n; x++) {
             for (int y = 0; y < n; y++) {
-                for (int z = 0; z < 3; z++) {
-                    cubies[x][y][z].updateColours();
+                for (int z = 0; z < n; z++) {
+                    if (cubies[x][y][z] != null) cubies[x][y][z].updateColours();
                 }
             }
         }
     }
 
+    public void updateChanged() {
+        //only redraws the cubies under stickers the cube says have moved since last time
+        StickerMap map = MoveTable.forSize(n).map;
+        ArrayList<Cubie> changed = new ArrayList<>();
+        cube.drainChangedStickers(sticker -> {
+            Cubie cubie = cubies[map.xs[sticker]][map.ys[sticker]][map.zs[sticker]];
+            if (!cubie.queued) {
+                cubie.queued = true;
+                changed.add(cubie);
+            }
+        });
+        long startTime = Metrics.start(Metrics.Operation.COLOURS);
+        CubeEvents.ColoursEvent event = CubeEvents.beginColours();
+        for (Cubie cubie : changed) {
+            cubie.queued = false;
+            cubie.updateColours();
+        }
+        Metrics.record(Metrics.Operation.COLOURS, startTime);
+        CubeEvents.commitColours(event, changed.size());
+        updateTimeline();
+    }
+
+    boolean isOnSurface(int x, int y, int z) {
+        return x == 0 || y == 0 || z == 0 || x == n-1 || y == n-1 || z == n-1;
+    }
+
+    double cameraDistance() {
+        //far enough back to fit the whole cube in, which is -1200 for a 3x3
+        return -400 * Math.max(n, 3);
+    }
+
     public void moveCamera(int amount) {
         camera.setTranslateZ(camera.getTranslateZ()+amount);
     }
@@ -246,31 +373,4 @@ public class Controller {
             });
         }
     }
-
-    void animateSpin(ArrayList<Cubie> movedCubies, Cube.Turn turn, Point3D axis) {
-        AnimationTimer timer = new AnimationTimer() {
-            int i = 0;
-            final int turnMod = ((turn == Cube.Turn.CLOCKWISE)?1:((turn == Cube.Turn.ANTICLOCKWISE)?-1:((turn == Cube.Turn.TWO)?2:0)));
-            @Override
-            public void handle(long now) {
-                if (i==0) {
-                    for (Cubie cubie:movedCubies) {
-                        cubie.cuboid.setRotationAxis(axis);
-                    }
-                }
-                if (i++ >= 30) {
-                    for (Cubie cubie: movedCubies) {
-                        cubie.cuboid.setRotate(0);
-                    }
-                    updateFaces();
-                    stop();
-                } else {
-                    for (Cubie cubie:movedCubies) {
-                        cubie.cuboid.setRotate(cubie.cuboid.getRotate()+3*turnMod);
-                    }
-                }
-            }
-        };
-        timer.start();
-    }
 }
@@ -1,3 +1,5 @@
+import java.util.function.IntConsumer;
+
 public interface Cube {
     /**
      * Interface for the rubik's cube, should define all operations possible on it, as well as the return types
@@ -30,6 +32,9 @@ public interface Cube {
     void E(Turn turn);
 
     void S(Turn turn);
+
+    //any single move, including ones that pick their layers out by number like 3Rw or 2-4r
+    void apply(Move move);
     String shuffle(boolean makeSolution,int shuffleLength);
 
     void doAlgorithm(String input);
@@ -39,5 +44,15 @@ public interface Cube {
     Turn inverseTurn(Turn turn);
     Colour getFaceColour(int x, int y, int z, int face);
 
+    //a 64 bit Zobrist hash of the stickers, kept up to date by every move, and the same for the same state whichever
+    //implementation holds it
+    long stateHash();
+    //hands over every sticker (as a StickerMap index) that may have changed colour since the last time this was called
+    void drainChangedStickers(IntConsumer consumer);
+    //every sticker's colour as its index in PackedCube.COLOURS, in StickerMap order, for saving the whole state and
+    //putting it back later with setStickers
+    void getStickers(byte[] stickers);
+    void setStickers(byte[] stickers);
+
 
 }
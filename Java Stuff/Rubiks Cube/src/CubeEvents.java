@@ -0,0 +1,198 @@
+import jdk.jfr.*;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Supplier;
+
+public class CubeEvents {
+    /**
+     * Flight Recorder events for what the cube and the view spend their time on, which show up under "Rubik's Cube"
+     * in a recording (java -XX:StartFlightRecording ... or jcmd JFR.start). An event that isn't enabled in the
+     * recording, or when nothing is recording, costs next to nothing, and none of them take stack traces.
+     *
+     * No event is even made unless a recording is running, which a listener keeps track of so that checking is only
+     * reading a field, as moves take little longer than making one would. The begin methods return null otherwise,
+     * and the commit methods ignore it. Moves happen far too often to record every one by default, so rubiks.Move has
+     * to be enabled in the settings to see them. Algorithm runs, texture builds, redraws, frames and key presses are on.
+     */
+    //the recordings that are running, and whether there are any
+    private static final Set<Recording> running = new HashSet<>();
+    private static volatile boolean recording;
+
+    static {
+        FlightRecorder.addListener(new FlightRecorderListener() {
+            @Override
+            public void recorderInitialized(FlightRecorder recorder) {
+                for (Recording started : recorder.getRecordings()) {
+                    recordingStateChanged(started);
+                }
+            }
+
+            @Override
+            public void recordingStateChanged(Recording changed) {
+                synchronized (running) {
+                    if (changed.getState() == RecordingState.RUNNING) {
+                        running.add(changed);
+                    } else {
+                        running.remove(changed);
+                    }
+                    recording = !running.isEmpty();
+                }
+            }
+        });
+    }
+
+    private CubeEvents() {
+    }
+
+    private static <E extends Event> E begin(Supplier<E> make) {
+        //null when nothing is recording, which the commit methods then ignore
+        if (!recording) return null;
+        E event = make.get();
+        event.begin();
+        return event;
+    }
+
+    static MoveEvent beginMove() {
+        return begin(MoveEvent::new);
+    }
+
+    static AlgorithmEvent beginAlgorithm() {
+        return begin(AlgorithmEvent::new);
+    }
+
+    static TextureEvent beginTexture() {
+        return begin(TextureEvent::new);
+    }
+
+    static ColoursEvent beginColours() {
+        return begin(ColoursEvent::new);
+    }
+
+    static FrameEvent beginFrame() {
+        return begin(FrameEvent::new);
+    }
+
+    static InputEvent beginInput() {
+        return begin(InputEvent::new);
+    }
+
+    //the fields are only filled in if the event is going to be written, so one that isn't recorded costs no more
+    static void commitMove(MoveEvent event, int face, int from, int to, int turns, String implementation) {
+        if (event == null || !event.shouldCommit()) return;
+        event.face = Move.FACES.substring(face, face + 1);
+        event.from = from;
+        event.to = to;
+        event.turns = turns;
+        event.implementation = implementation;
+        event.commit();
+    }
+
+    static void commitAlgorithm(AlgorithmEvent event, String algorithm, int n, String implementation) {
+        if (event == null || !event.shouldCommit()) return;
+        event.algorithm = algorithm;
+        event.n = n;
+        event.implementation = implementation;
+        event.commit();
+    }
+
+    static void commitTexture(TextureEvent event, int key) {
+        if (event == null || !event.shouldCommit()) return;
+        event.key = key;
+        event.commit();
+    }
+
+    static void commitColours(ColoursEvent event, int cubies) {
+        if (event == null || !event.shouldCommit()) return;
+        event.cubies = cubies;
+        event.commit();
+    }
+
+    static void commitFrame(FrameEvent event, int finished, int waiting) {
+        if (event == null || !event.shouldCommit()) return;
+        event.finished = finished;
+        event.waiting = waiting;
+        event.commit();
+    }
+
+    static void commitInput(InputEvent event, String key) {
+        if (event == null || !event.shouldCommit()) return;
+        event.key = key;
+        event.commit();
+    }
+
+    @Name("rubiks.Move")
+    @Label("Move")
+    @Description("One move or rotation, of any number of layers")
+    @Category("Rubik's Cube")
+    @StackTrace(false)
+    @Enabled(false)
+    static class MoveEvent extends Event {
+        @Label("Face")
+        String face;
+        @Label("First Layer")
+        int from;
+        @Label("Last Layer")
+        int to;
+        @Label("Quarter Turns")
+        int turns;
+        @Label("Cube")
+        String implementation;
+    }
+
+    @Name("rubiks.Algorithm")
+    @Label("Algorithm")
+    @Description("A whole algorithm done with doAlgorithm")
+    @Category("Rubik's Cube")
+    @StackTrace(false)
+    static class AlgorithmEvent extends Event {
+        @Label("Algorithm")
+        String algorithm;
+        @Label("Cube Size")
+        int n;
+        @Label("Cube")
+        String implementation;
+    }
+
+    @Name("rubiks.Texture")
+    @Label("Texture Build")
+    @Description("A cubie's net drawn into a new texture, because no cached one had its colours")
+    @Category("Rubik's Cube")
+    @StackTrace(false)
+    static class TextureEvent extends Event {
+        @Label("Colour Key")
+        int key;
+    }
+
+    @Name("rubiks.Colours")
+    @Label("Cubie Redraw")
+    @Description("The cubies under stickers that moved having their colours updated")
+    @Category("Rubik's Cube")
+    @StackTrace(false)
+    static class ColoursEvent extends Event {
+        @Label("Cubies")
+        int cubies;
+    }
+
+    @Name("rubiks.Frame")
+    @Label("Animation Frame")
+    @Description("The work MoveScheduler does on one frame of a turn animation")
+    @Category("Rubik's Cube")
+    @StackTrace(false)
+    static class FrameEvent extends Event {
+        @Label("Moves Finished")
+        int finished;
+        @Label("Moves Waiting")
+        int waiting;
+    }
+
+    @Name("rubiks.Input")
+    @Label("Key Press To Frame")
+    @Description("From a key being pressed to the first frame after it")
+    @Category("Rubik's Cube")
+    @StackTrace(false)
+    static class InputEvent extends Event {
+        @Label("Key")
+        String key;
+    }
+}
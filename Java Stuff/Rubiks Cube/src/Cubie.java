@@ -1,56 +1,51 @@
 import javafx.scene.Group;
-import javafx.scene.image.Image;
-import javafx.scene.paint.PhongMaterial;
-import javafx.scene.shape.CullFace;
+import javafx.scene.Node;
+import javafx.scene.transform.Rotate;
 import javafx.scene.transform.Translate;
-import org.fxyz3d.shapes.primitives.CuboidMesh;
 
-public class Cubie {
-    CuboidMesh cuboid;
+public abstract class Cubie {
+    /**
+     * One piece of the cube on screen, at cubie coordinates x,y,z. How it is drawn is up to the subclass: TexturedCubie
+     * is a box with a net image wrapped round it and StickerCubie is a black box with a flat quad for each sticker.
+     *
+     * Every cubie is moved into place with a Translate, and has a Rotate in front of that (spin) that turns it about
+     * the centre of the whole cube, which is what the turn animations use.
+     */
     int x,y,z,n;
     static double BOX_SIZE = 100;
+    //set while the cubie is waiting in Controller.updateChanged, so it only gets redrawn once
+    boolean queued;
 
     double xPos, yPos, zPos;
 
     Cube cube;
+    Node node;
+    final Rotate spin = new Rotate(0, Rotate.Y_AXIS);
 
 
-    public Cubie(int x, int y, int z, Group group,int n,Cube cube) {
+    public Cubie(int x, int y, int z, int n, Cube cube) {
         this.x = x;
         this.y = y;
         this.z = z;
         this.n = n;
-        xPos = (x-1)*102;
-        yPos = (y-1)*102;
-        zPos = (z-1)*102;
+        //centred on the middle of the cube whatever size it is
+        xPos = (x-(n-1)/2.0)*102;
+        yPos = (y-(n-1)/2.0)*102;
+        zPos = (z-(n-1)/2.0)*102;
         this.cube = cube;
-        //this line makes noise in the console I guess
-        cuboid = new CuboidMesh(BOX_SIZE,BOX_SIZE,BOX_SIZE);
-        cuboid.getTransforms().add(new Translate(xPos,yPos,zPos));
-        cuboid.setCullFace(CullFace.BACK);
-        group.getChildren().add(cuboid);
+    }
 
+    void place(Node node, Group group) {
+        //for subclasses to call once they have built their node, which puts it in the scene and colours it in
+        this.node = node;
+        node.getTransforms().addAll(spin, new Translate(xPos,yPos,zPos));
+        group.getChildren().add(node);
         updateColours();
-
-
     }
 
-    public void updateColours() {
-        Cube.Colour[] colours = new Cube.Colour[6];
-        for (int i = 0; i < 6; i ++) {
-            if (isFaceVisible(x, y, z, i)) {
-                colours[i] = cube.getFaceColour(x, y, z, i);
-            } else {
-                colours[i] = Cube.Colour.BLACK;
-            }
-        }
-        Image newMeshImage = Net.makeNet(colours,BOX_SIZE);
-        PhongMaterial mat = new PhongMaterial();
-        mat.setDiffuseMap(newMeshImage);
-        cuboid.setMaterial(mat);
-    }
+    public abstract void updateColours();
 
-    private boolean isFaceVisible(int x,int y,int z,int face) {
+    boolean isFaceVisible(int face) {
         switch (face){
             case 0:
                 return y == 0;
@@ -0,0 +1,506 @@
+import java.util.*;
+import java.util.function.IntConsumer;
+
+public class CubieCube implements Cube {
+    /**
+     * A 3x3 cube stored as pieces instead of stickers: for each of the 8 corner and 12 edge positions, which piece is
+     * there and how it is twisted or flipped, plus which colour each centre is (centres only move on slices and
+     * rotations). Positions and pieces use the usual solver numbering, corners URF,UFL,ULB,UBR,DFR,DLF,DBL,DRB and edges
+     * UR,UF,UL,UB,DR,DF,DL,DB,FR,FL,BL,BR. An orientation of 0 means the piece's U/D sticker (or for the middle layer
+     * edges its F/B sticker) is on the first facelet of the position as listed in CORNER_FACES and EDGE_FACES.
+     *
+     * Every move in Move is turned into a piece move table once, by reading off where the 3x3 MoveTable sends each
+     * facelet, so a turn is a few small array lookups no matter what kind of move it is.
+     */
+    static final int[][] CORNER_FACES = {{0,3,2},{0,2,1},{0,1,4},{0,4,3},{5,2,3},{5,1,2},{5,4,1},{5,3,4}};
+    static final int[][] EDGE_FACES = {{0,3},{0,2},{0,1},{0,4},{5,3},{5,2},{5,1},{5,4},{2,3},{2,1},{4,1},{4,3}};
+    static final String[] CORNER_NAMES = {"URF","UFL","ULB","UBR","DFR","DLF","DBL","DRB"};
+    static final String[] EDGE_NAMES = {"UR","UF","UL","UB","DR","DF","DL","DB","FR","FL","BL","BR"};
+
+    //facelet sticker indices on a 3x3 PackedCube, in the same order as CORNER_FACES/EDGE_FACES
+    static final int[][] CORNER_FACELETS = new int[8][3];
+    static final int[][] EDGE_FACELETS = new int[12][2];
+    static final int[] CENTRE_FACELETS = new int[6];
+
+    static final byte[][] CORNER_PERM_MOVE = new byte[Move.COUNT][8];
+    static final byte[][] CORNER_ORI_MOVE = new byte[Move.COUNT][8];
+    static final byte[][] EDGE_PERM_MOVE = new byte[Move.COUNT][12];
+    static final byte[][] EDGE_ORI_MOVE = new byte[Move.COUNT][12];
+    static final byte[][] CENTRE_MOVE = new byte[Move.COUNT][6];
+    //the slice that is the second layer of each face, and whether it turns the other way to the face
+    private static final String SLICES = "EMSMSE";
+    private static final boolean[] SLICE_INVERTED = {true,false,false,true,true,false};
+
+    static {
+        StickerMap map = new StickerMap(3);
+        for (int i = 0; i < 8; i++) {
+            CORNER_FACELETS[i] = cornerFacelets(map, i);
+        }
+        for (int i = 0; i < 12; i++) {
+            for (int j = 0; j < 2; j++) {
+                int[] position = edgePosition(i, 3);
+                EDGE_FACELETS[i][j] = map.stickerAt(position[0], position[1], position[2], EDGE_FACES[i][j]);
+            }
+        }
+        for (int face = 0; face < 6; face++) {
+            CENTRE_FACELETS[face] = map.index(face, 1, 1);
+        }
+        MoveTable table = MoveTable.forSize(3);
+        for (int m = 0; m < Move.COUNT; m++) {
+            Move move = Move.fromIndex(m);
+            int[] permutation = new int[map.size];
+            for (int i = 0; i < permutation.length; i++) {
+                permutation[i] = i;
+            }
+            table.apply(permutation, move.face(), move.from(3), move.to(3), move.turns);
+            for (int i = 0; i < 8; i++) {
+                for (int t = 0; t < 3; t++) {
+                    int source = permutation[CORNER_FACELETS[i][t]];
+                    for (int j = 0; j < 8; j++) {
+                        if (CORNER_FACELETS[j][0] == source) {
+                            CORNER_PERM_MOVE[m][i] = (byte) j;
+                            CORNER_ORI_MOVE[m][i] = (byte) t;
+                        }
+                    }
+                }
+            }
+            for (int i = 0; i < 12; i++) {
+                for (int t = 0; t < 2; t++) {
+                    int source = permutation[EDGE_FACELETS[i][t]];
+                    for (int j = 0; j < 12; j++) {
+                        if (EDGE_FACELETS[j][0] == source) {
+                            EDGE_PERM_MOVE[m][i] = (byte) j;
+                            EDGE_ORI_MOVE[m][i] = (byte) t;
+                        }
+                    }
+                }
+            }
+            for (int face = 0; face < 6; face++) {
+                CENTRE_MOVE[m][face] = (byte) map.face(permutation[CENTRE_FACELETS[face]]);
+            }
+        }
+    }
+
+    byte[] cp = new byte[8];
+    byte[] co = new byte[8];
+    byte[] ep = new byte[12];
+    byte[] eo = new byte[12];
+    byte[] centres = new byte[6];
+    private byte[] cpBuffer = new byte[8], coBuffer = new byte[8], epBuffer = new byte[12], eoBuffer = new byte[12], centreBuffer = new byte[6];
+    private final byte[] stickerBuffer = new byte[54];
+
+    boolean nextMoveIsWide;
+    //there are only 54 stickers, so any change just counts as all of them changing
+    private boolean changed;
+
+    public CubieCube() {
+        reset();
+    }
+
+    public CubieCube(CubieCube other) {
+        copyFrom(other);
+    }
+
+    static int[] cornerPosition(int corner, int n) {
+        //x,y,z of the cubie at a corner position, from which faces its stickers are on
+        int[] position = new int[3];
+        for (int face : CORNER_FACES[corner]) {
+            setCoordinate(position, face, n);
+        }
+        return position;
+    }
+
+    static int[] edgePosition(int edge, int n) {
+        int[] position = {n / 2, n / 2, n / 2};
+        for (int face : EDGE_FACES[edge]) {
+            setCoordinate(position, face, n);
+        }
+        return position;
+    }
+
+    private static void setCoordinate(int[] position, int face, int n) {
+        switch (face) {
+            case 0: position[1] = 0; break;
+            case 1: position[0] = 0; break;
+            case 2: position[2] = 0; break;
+            case 3: position[0] = n - 1; break;
+            case 4: position[2] = n - 1; break;
+            case 5: position[1] = n - 1; break;
+        }
+    }
+
+    static int[] cornerFacelets(StickerMap map, int corner) {
+        //works for any size of cube, since the corners are always there
+        int[] position = cornerPosition(corner, map.n);
+        int[] facelets = new int[3];
+        for (int t = 0; t < 3; t++) {
+            facelets[t] = map.stickerAt(position[0], position[1], position[2], CORNER_FACES[corner][t]);
+        }
+        return facelets;
+    }
+
+    public void copyFrom(CubieCube other) {
+        System.arraycopy(other.cp, 0, cp, 0, 8);
+        System.arraycopy(other.co, 0, co, 0, 8);
+        System.arraycopy(other.ep, 0, ep, 0, 12);
+        System.arraycopy(other.eo, 0, eo, 0, 12);
+        System.arraycopy(other.centres, 0, centres, 0, 6);
+        changed = true;
+    }
+
+    public void move(int m) {
+        byte[] mcp = CORNER_PERM_MOVE[m], mco = CORNER_ORI_MOVE[m], mep = EDGE_PERM_MOVE[m], meo = EDGE_ORI_MOVE[m], mcen = CENTRE_MOVE[m];
+        for (int i = 0; i < 8; i++) {
+            cpBuffer[i] = cp[mcp[i]];
+            coBuffer[i] = (byte) ((co[mcp[i]] + mco[i]) % 3);
+        }
+        for (int i = 0; i < 12; i++) {
+            epBuffer[i] = ep[mep[i]];
+            eoBuffer[i] = (byte) (eo[mep[i]] ^ meo[i]);
+        }
+        for (int i = 0; i < 6; i++) {
+            centreBuffer[i] = centres[mcen[i]];
+        }
+        byte[] swap;
+        swap = cp; cp = cpBuffer; cpBuffer = swap;
+        swap = co; co = coBuffer; coBuffer = swap;
+        swap = ep; ep = epBuffer; epBuffer = swap;
+        swap = eo; eo = eoBuffer; eoBuffer = swap;
+        swap = centres; centres = centreBuffer; centreBuffer = swap;
+        changed = true;
+    }
+
+    public void apply(Move move) {
+        if (move.index() >= 0) {
+            move(move.index());
+            return;
+        }
+        //layers picked out by number, which on a 3x3 are each a face, a slice or the opposite face
+        int face = move.face();
+        for (int layer = move.from(3); layer <= move.to(3); layer++) {
+            switch (layer) {
+                case 0: move(new Move(Move.FACES.charAt(face), move.turns).index()); break;
+                case 1: move(new Move(SLICES.charAt(face), SLICE_INVERTED[face] ? 4 - move.turns : move.turns).index()); break;
+                default: move(new Move(Move.FACES.charAt(StickerMap.OPPOSITE[face]), 4 - move.turns).index()); break;
+            }
+        }
+    }
+
+    private void turn(char letter, Turn turn) {
+        if (turn == Turn.NONE) return;
+        if (nextMoveIsWide && Move.FACES.indexOf(letter) >= 0) {
+            nextMoveIsWide = false;
+            letter = Move.WIDE_FACES.charAt(Move.FACES.indexOf(letter));
+        }
+        apply(new Move(letter, turn == Turn.CLOCKWISE ? 1 : turn == Turn.TWO ? 2 : 3));
+    }
+
+    public void setNextMoveIsWide(boolean wide) {
+        nextMoveIsWide = wide;
+    }
+
+    public void Up(Turn turn) {turn('U', turn);}
+    public void Down(Turn turn) {turn('D', turn);}
+    public void Left(Turn turn) {turn('L', turn);}
+    public void Right(Turn turn) {turn('R', turn);}
+    public void Front(Turn turn) {turn('F', turn);}
+    public void Back(Turn turn) {turn('B', turn);}
+    public void y(Turn turn) {turn('y', turn);}
+    public void x(Turn turn) {turn('x', turn);}
+    public void z(Turn turn) {turn('z', turn);}
+    public void M(Turn turn) {turn('M', turn);}
+    public void E(Turn turn) {turn('E', turn);}
+    public void S(Turn turn) {turn('S', turn);}
+
+    public void doAlgorithm(String input) throws IllegalArgumentException {
+        for (Move move : Move.parseAll(input)) {
+            apply(move);
+        }
+    }
+
+    public void reset() {
+        for (byte i = 0; i < 8; i++) {
+            cp[i] = i;
+            co[i] = 0;
+        }
+        for (byte i = 0; i < 12; i++) {
+            ep[i] = i;
+            eo[i] = 0;
+        }
+        for (byte i = 0; i < 6; i++) {
+            centres[i] = i;
+        }
+        changed = true;
+    }
+
+    public String shuffle(boolean giveSolution, int shuffleLength) {
+        return ScrambleGenerator.shuffle(this, giveSolution, shuffleLength);
+    }
+
+    public Turn inverseTurn(Turn turn) {
+        switch (turn) {
+            case CLOCKWISE: return Turn.ANTICLOCKWISE;
+            case ANTICLOCKWISE: return Turn.CLOCKWISE;
+            case TWO: return Turn.TWO;
+            default: return Turn.NONE;
+        }
+    }
+
+    public void drainChangedStickers(IntConsumer consumer) {
+        if (!changed) return;
+        changed = false;
+        for (int i = 0; i < 54; i++) {
+            consumer.accept(i);
+        }
+    }
+
+    public Colour getFaceColour(int x, int y, int z, int face) {
+        return PackedCube.COLOURS[stickerColour(MoveTable.forSize(3).map.stickerAt(x, y, z, face))];
+    }
+
+    int stickerColour(int sticker) {
+        for (int i = 0; i < 8; i++) {
+            for (int t = 0; t < 3; t++) {
+                if (CORNER_FACELETS[i][t] == sticker) return CORNER_FACES[cp[i]][(t - co[i] + 3) % 3];
+            }
+        }
+        for (int i = 0; i < 12; i++) {
+            for (int t = 0; t < 2; t++) {
+                if (EDGE_FACELETS[i][t] == sticker) return EDGE_FACES[ep[i]][(t + eo[i]) % 2];
+            }
+        }
+        return centres[sticker / 9];
+    }
+
+    public void toStickers(byte[] stickers) {
+        for (int i = 0; i < 8; i++) {
+            for (int t = 0; t < 3; t++) {
+                stickers[CORNER_FACELETS[i][t]] = (byte) CORNER_FACES[cp[i]][(t - co[i] + 3) % 3];
+            }
+        }
+        for (int i = 0; i < 12; i++) {
+            for (int t = 0; t < 2; t++) {
+                stickers[EDGE_FACELETS[i][t]] = (byte) EDGE_FACES[ep[i]][(t + eo[i]) % 2];
+            }
+        }
+        for (int face = 0; face < 6; face++) {
+            stickers[CENTRE_FACELETS[face]] = centres[face];
+        }
+    }
+
+    public void getStickers(byte[] stickers) {
+        toStickers(stickers);
+    }
+
+    public void setStickers(byte[] stickers) throws IllegalArgumentException {
+        copyFrom(fromStickers(stickers));
+    }
+
+    public PackedCube toPackedCube() {
+        PackedCube cube = new PackedCube(3);
+        toStickers(cube.stickers);
+        cube.stickersChanged();
+        return cube;
+    }
+
+    public ArrayCube toArrayCube() {
+        byte[] stickers = new byte[54];
+        toStickers(stickers);
+        ArrayCube cube = new ArrayCube(3);
+        for (int i = 0; i < 54; i++) {
+            cube.faceColours[i / 9][i % 9 / 3][i % 3] = PackedCube.COLOURS[stickers[i]];
+        }
+        cube.stickersChanged();
+        return cube;
+    }
+
+    public long stateHash() {
+        //pieces don't line up with single stickers, so this is worked out from the stickers when asked for instead of
+        //being kept up to date, which is still only 54 lookups
+        toStickers(stickerBuffer);
+        return MoveTable.forSize(3).hash(stickerBuffer);
+    }
+
+    public static CubieCube fromCube(Cube cube) throws IllegalArgumentException {
+        //reads the stickers through getFaceColour, so this works on any 3x3 Cube implementation
+        StickerMap map = MoveTable.forSize(3).map;
+        byte[] stickers = new byte[54];
+        for (int i = 0; i < 54; i++) {
+            Colour colour = cube.getFaceColour(map.xs[i], map.ys[i], map.zs[i], map.face(i));
+            stickers[i] = (byte) Arrays.asList(PackedCube.COLOURS).indexOf(colour);
+        }
+        return fromStickers(stickers);
+    }
+
+    public static CubieCube fromStickers(byte[] stickers) throws IllegalArgumentException {
+        CubieCube cube = new CubieCube();
+        for (int i = 0; i < 8; i++) {
+            int ori = 0;
+            while (ori < 3 && stickers[CORNER_FACELETS[i][ori]] != 0 && stickers[CORNER_FACELETS[i][ori]] != 5) ori++;
+            if (ori == 3) throw new IllegalArgumentException("corner " + CORNER_NAMES[i] + " has no white or yellow sticker");
+            int first = stickers[CORNER_FACELETS[i][(ori + 1) % 3]];
+            int second = stickers[CORNER_FACELETS[i][(ori + 2) % 3]];
+            int piece = -1;
+            for (int j = 0; j < 8; j++) {
+                if (CORNER_FACES[j][0] == stickers[CORNER_FACELETS[i][ori]] && CORNER_FACES[j][1] == first && CORNER_FACES[j][2] == second) piece = j;
+            }
+            if (piece < 0) throw new IllegalArgumentException("no corner matches the stickers at " + CORNER_NAMES[i]);
+            cube.cp[i] = (byte) piece;
+            cube.co[i] = (byte) ori;
+        }
+        for (int i = 0; i < 12; i++) {
+            int a = stickers[EDGE_FACELETS[i][0]];
+            int b = stickers[EDGE_FACELETS[i][1]];
+            int piece = -1;
+            for (int j = 0; j < 12; j++) {
+                if (EDGE_FACES[j][0] == a && EDGE_FACES[j][1] == b) {
+                    piece = j;
+                    cube.eo[i] = 0;
+                } else if (EDGE_FACES[j][0] == b && EDGE_FACES[j][1] == a) {
+                    piece = j;
+                    cube.eo[i] = 1;
+                }
+            }
+            if (piece < 0) throw new IllegalArgumentException("no edge matches the stickers at " + EDGE_NAMES[i]);
+            cube.ep[i] = (byte) piece;
+        }
+        for (int face = 0; face < 6; face++) {
+            cube.centres[face] = stickers[CENTRE_FACELETS[face]];
+        }
+        return cube;
+    }
+
+    //coordinates, each one a small integer that the solvers can use as a table index
+
+    public int getTwist() {
+        int twist = 0;
+        for (int i = 0; i < 7; i++) {
+            twist = 3 * twist + co[i];
+        }
+        return twist;
+    }
+
+    public void setTwist(int twist) {
+        int sum = 0;
+        for (int i = 6; i >= 0; i--) {
+            co[i] = (byte) (twist % 3);
+            sum += co[i];
+            twist /= 3;
+        }
+        co[7] = (byte) ((3 - sum % 3) % 3);
+    }
+
+    public int getFlip() {
+        int flip = 0;
+        for (int i = 0; i < 11; i++) {
+            flip = 2 * flip + eo[i];
+        }
+        return flip;
+    }
+
+    public void setFlip(int flip) {
+        int sum = 0;
+        for (int i = 10; i >= 0; i--) {
+            eo[i] = (byte) (flip % 2);
+            sum += eo[i];
+            flip /= 2;
+        }
+        eo[11] = (byte) (sum % 2);
+    }
+
+    public int getCornerPermutation() {
+        return permutationIndex(cp);
+    }
+
+    public void setCornerPermutation(int index) {
+        setPermutation(cp, index);
+    }
+
+    public int getEdgePermutation() {
+        return permutationIndex(ep);
+    }
+
+    public void setEdgePermutation(int index) {
+        setPermutation(ep, index);
+    }
+
+    static int permutationIndex(byte[] perm) {
+        //lehmer code, 0 for the identity
+        int index = 0;
+        for (int i = 0; i < perm.length; i++) {
+            int smaller = 0;
+            for (int j = i + 1; j < perm.length; j++) {
+                if (perm[j] < perm[i]) smaller++;
+            }
+            index = index * (perm.length - i) + smaller;
+        }
+        return index;
+    }
+
+    static void setPermutation(byte[] perm, int index) {
+        int length = perm.length;
+        int[] digits = new int[length];
+        for (int i = length - 1; i >= 0; i--) {
+            digits[i] = index % (length - i);
+            index /= length - i;
+        }
+        boolean[] used = new boolean[length];
+        for (int i = 0; i < length; i++) {
+            byte value = 0;
+            for (int count = digits[i]; used[value] || count > 0; value++) {
+                if (!used[value]) count--;
+            }
+            used[value] = true;
+            perm[i] = value;
+        }
+    }
+
+    public boolean isSolvable() {
+        //every piece there once, twists and flips adding up, and corner and edge swaps having the same parity
+        int cornersSeen = 0, edgesSeen = 0, twist = 0, flip = 0;
+        for (int i = 0; i < 8; i++) {
+            cornersSeen |= 1 << cp[i];
+            twist += co[i];
+        }
+        for (int i = 0; i < 12; i++) {
+            edgesSeen |= 1 << ep[i];
+            flip += eo[i];
+        }
+        return cornersSeen == 0xff && edgesSeen == 0xfff && twist % 3 == 0 && flip % 2 == 0 && parity(cp) == parity(ep);
+    }
+
+    static int parity(byte[] perm) {
+        int parity = 0;
+        for (int i = 0; i < perm.length; i++) {
+            for (int j = i + 1; j < perm.length; j++) {
+                if (perm[j] < perm[i]) parity ^= 1;
+            }
+        }
+        return parity;
+    }
+
+    public boolean isSolved() {
+        for (int i = 0; i < 8; i++) {
+            if (cp[i] != i || co[i] != 0) return false;
+        }
+        for (int i = 0; i < 12; i++) {
+            if (ep[i] != i || eo[i] != 0) return false;
+        }
+        return true;
+    }
+
+    public boolean equals(Object o) {
+        if (!(o instanceof CubieCube)) return false;
+        CubieCube other = (CubieCube) o;
+        return Arrays.equals(cp, other.cp) && Arrays.equals(co, other.co) && Arrays.equals(ep, other.ep)
+                && Arrays.equals(eo, other.eo) && Arrays.equals(centres, other.centres);
+    }
+
+    public int hashCode() {
+        return ((getCornerPermutation() * 2187 + getTwist()) * 31 + getEdgePermutation()) * 31 + getFlip();
+    }
+
+    public String toString() {
+        return toPackedCube().toString();
+    }
+}
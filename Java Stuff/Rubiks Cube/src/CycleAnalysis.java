@@ -0,0 +1,180 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class CycleAnalysis {
+    /**
+     * The cycles an algorithm moves stickers round on a cube of size n, taken straight from the sticker permutation
+     * that Algorithm compiles it to (so an algorithm seen before isn't even parsed again), and what follows from them.
+     *
+     * A sticker going round a cycle of length L is back after L repeats, so the order (how many repeats put every
+     * sticker back) is the lowest common multiple of the lengths. Twists and flips need no special handling: a corner
+     * that comes back twisted sends its stickers round a cycle 3 times as long. solvedOrder is how many repeats make a
+     * solved cube look solved again, which can be less on big cubes, where centre stickers of one colour can swap
+     * round among themselves. It is found by checking, for each cycle, how soon the colours along it repeat.
+     *
+     * For the 3x3, pieceCycles() writes the cycles out piece by piece in the usual way, like (URF UBR ULB)+ (UF UB).
+     */
+    final Algorithm algorithm;
+    final int n;
+    //each cycle in the order a colour goes round it, stickers as StickerMap indices
+    final int[][] cycles;
+    final long order;
+    final long solvedOrder;
+    //the cubies with a sticker that moves, as x * n * n + y * n + z
+    final int[] pieces;
+
+    private CycleAnalysis(Algorithm algorithm) {
+        this.algorithm = algorithm;
+        n = algorithm.n;
+        StickerMap map = MoveTable.forSize(n).map;
+        //next[sticker] is where its colour goes, or -1 if it stays put or its cycle has already been found
+        int[] next = new int[map.size];
+        Arrays.fill(next, -1);
+        for (int i = 0; i < algorithm.changed.length; i++) {
+            next[algorithm.sources[i]] = algorithm.changed[i];
+        }
+        List<int[]> found = new ArrayList<>();
+        long order = 1, solvedOrder = 1;
+        for (int start : algorithm.changed) {
+            if (next[start] < 0) continue;
+            int length = 1;
+            for (int sticker = next[start]; sticker != start; sticker = next[sticker]) {
+                length++;
+            }
+            int[] cycle = new int[length];
+            for (int i = 0, sticker = start; i < length; i++) {
+                cycle[i] = sticker;
+                sticker = next[sticker];
+                next[cycle[i]] = -1;
+            }
+            found.add(cycle);
+            order = lcm(order, length);
+            solvedOrder = lcm(solvedOrder, colourPeriod(map, cycle));
+        }
+        cycles = found.toArray(new int[0][]);
+        this.order = order;
+        this.solvedOrder = solvedOrder;
+        boolean[] moved = new boolean[n * n * n];
+        int count = 0;
+        for (int sticker : algorithm.changed) {
+            int piece = (map.xs[sticker] * n + map.ys[sticker]) * n + map.zs[sticker];
+            if (!moved[piece]) count++;
+            moved[piece] = true;
+        }
+        pieces = new int[count];
+        for (int piece = 0, i = 0; piece < moved.length; piece++) {
+            if (moved[piece]) pieces[i++] = piece;
+        }
+    }
+
+    public static CycleAnalysis of(String algorithm, int n) throws IllegalArgumentException {
+        return new CycleAnalysis(Algorithm.compile(algorithm, n));
+    }
+
+    public static CycleAnalysis of(Algorithm algorithm) {
+        return new CycleAnalysis(algorithm);
+    }
+
+    public static void main(String[] args) throws IOException {
+        //prints the order and the pieces each algorithm in a file moves, one per line
+        if (args.length < 1) {
+            System.out.println("usage: CycleAnalysis algorithms-file [n]");
+            return;
+        }
+        int n = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        long startTime = System.nanoTime();
+        int count = 0;
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(args[0]), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                //a line that can't be analysed gets the reason instead, and the rest carry on
+                try {
+                    CycleAnalysis analysis = of(line, n);
+                    System.out.println(analysis.order + "\t" + analysis.solvedOrder + "\t" + analysis.pieces.length + "\t"
+                            + (n == 3 ? pieceCycles(line) : analysis.cycles.length + " cycles"));
+                } catch (IllegalArgumentException e) {
+                    System.out.println("error: " + e.getMessage());
+                }
+                count++;
+            }
+        }
+        System.err.println(count + " algorithms in " + (System.nanoTime() - startTime) / 1000 + "us");
+    }
+
+    static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    static long lcm(long a, long b) {
+        return Math.multiplyExact(a / gcd(a, b), b);
+    }
+
+    private static int colourPeriod(StickerMap map, int[] cycle) {
+        //the smallest number of steps round the cycle after which every sticker in it has its own colour again
+        for (int period = 1; period < cycle.length; period++) {
+            if (cycle.length % period != 0) continue;
+            boolean repeats = true;
+            for (int i = 0; i < cycle.length && repeats; i++) {
+                repeats = map.face(cycle[i]) == map.face(cycle[(i + period) % cycle.length]);
+            }
+            if (repeats) return period;
+        }
+        return cycle.length;
+    }
+
+    public int[] cycleLengths() {
+        int[] lengths = new int[cycles.length];
+        for (int i = 0; i < cycles.length; i++) {
+            lengths[i] = cycles[i].length;
+        }
+        return lengths;
+    }
+
+    public static String pieceCycles(String algorithm) throws IllegalArgumentException {
+        //the corner and edge cycles of a 3x3 algorithm, each piece named by the position it starts from and each cycle
+        //in the order the pieces travel. + or - after a corner cycle says its corners come back twisted clockwise or
+        //anticlockwise, and + after an edge cycle that they come back flipped. Centres moved by slices and rotations
+        //are left out
+        CubieCube cube = new CubieCube();
+        cube.doAlgorithm(algorithm);
+        StringBuilder builder = new StringBuilder();
+        appendCycles(builder, cube.cp, cube.co, 3, CubieCube.CORNER_NAMES);
+        appendCycles(builder, cube.ep, cube.eo, 2, CubieCube.EDGE_NAMES);
+        return builder.toString();
+    }
+
+    private static void appendCycles(StringBuilder builder, byte[] permutation, byte[] orientation, int twists, String[] names) {
+        //permutation[position] is the piece there now, so the piece from position p went to where permutation is p
+        int[] destination = new int[permutation.length];
+        for (int position = 0; position < permutation.length; position++) {
+            destination[permutation[position]] = position;
+        }
+        boolean[] seen = new boolean[permutation.length];
+        for (int start = 0; start < permutation.length; start++) {
+            if (seen[start] || (destination[start] == start && orientation[start] == 0)) continue;
+            if (builder.length() > 0) builder.append(' ');
+            builder.append('(');
+            int twist = 0;
+            for (int position = start; !seen[position]; position = destination[position]) {
+                seen[position] = true;
+                if (position != start) builder.append(' ');
+                builder.append(names[position]);
+                twist += orientation[destination[position]];
+            }
+            builder.append(')');
+            if (twist % twists == 1) builder.append('+');
+            if (twist % twists == 2) builder.append('-');
+        }
+    }
+}
@@ -0,0 +1,148 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+public class Facelets {
+    /**
+     * The usual facelet string for a cube: one letter per sticker saying which face's colour it is, going through the
+     * faces in the order U R F D L B and each face row by row as seen from outside the cube (the same way round as the
+     * net view), so 54 letters for a 3x3 and 6*n*n for any other size. The solved 3x3 is
+     * UUUUUUUUURRRRRRRRRFFFFFFFFFDDDDDDDDDLLLLLLLLLBBBBBBBBB.
+     *
+     * Letters go by colour rather than by whichever centre is on a face, so even sized cubes (which have no fixed
+     * centres) and turned cubes read back exactly as they were written.
+     *
+     * Everything here writes straight into an Appendable one character at a time, without building any strings on
+     * the way, so it's cheap enough to dump states into logs and files by the million.
+     */
+    static final String ORDER = "URFDLB";
+    //the faces of ORDER as StickerMap face numbers
+    private static final int[] FACES = {0, 3, 2, 5, 1, 4};
+    //by colour index in PackedCube.COLOURS, which is also the face each colour starts on
+    private static final char[] LETTERS = {'U', 'L', 'F', 'R', 'B', 'D'};
+    private static final char[] ASCII = {'W', 'O', 'G', 'R', 'B', 'Y'};
+    private static final String[] EMOJI = {"⬜", "\uD83D\uDFE7", "\uD83D\uDFE9", "\uD83D\uDFE5", "\uD83D\uDFE6", "\uD83D\uDFE8"};
+
+    private Facelets() {
+    }
+
+    public static int sizeOf(CharSequence facelets) throws IllegalArgumentException {
+        //the n of the cube a facelet string of this length is for
+        int faceSize = facelets.length() / 6;
+        int n = (int) Math.round(Math.sqrt(faceSize));
+        if (n < 1 || 6 * n * n != facelets.length()) throw new IllegalArgumentException("a facelet string has to be 6*n*n letters long, not " + facelets.length());
+        return n;
+    }
+
+    private static int colour(Cube cube, StickerMap map, int sticker) {
+        return PackedCube.COLOUR_INDEX[cube.getFaceColour(map.xs[sticker], map.ys[sticker], map.zs[sticker], map.face(sticker)).ordinal()];
+    }
+
+    public static void append(Cube cube, int n, Appendable out) throws IOException {
+        StickerMap map = MoveTable.forSize(n).map;
+        for (int face : FACES) {
+            for (int i = face * map.faceSize, end = i + map.faceSize; i < end; i++) {
+                out.append(LETTERS[colour(cube, map, i)]);
+            }
+        }
+    }
+
+    public static String toString(Cube cube, int n) {
+        StringBuilder builder = new StringBuilder(6 * n * n);
+        try {
+            append(cube, n, builder);
+        } catch (IOException e) {
+            //StringBuilder never throws
+            throw new UncheckedIOException(e);
+        }
+        return builder.toString();
+    }
+
+    public static PackedCube parse(CharSequence facelets) throws IllegalArgumentException {
+        PackedCube cube = new PackedCube(sizeOf(facelets));
+        load(facelets, cube);
+        return cube;
+    }
+
+    public static void load(CharSequence facelets, PackedCube cube) throws IllegalArgumentException {
+        //overwrites every sticker of the cube, which has to be the right size already. Checks each colour is on
+        //exactly n*n stickers, but not whether the pieces could really be put together that way
+        if (sizeOf(facelets) != cube.n) throw new IllegalArgumentException("this facelet string isn't for a " + cube.n + "x" + cube.n);
+        int[] counts = new int[6];
+        int position = 0;
+        for (int face : FACES) {
+            for (int i = face * cube.faceSize, end = i + cube.faceSize; i < end; i++) {
+                char letter = facelets.charAt(position++);
+                int colour = letterIndex(letter);
+                if (colour < 0) throw new IllegalArgumentException("'" + letter + "' isn't a face, it has to be one of " + ORDER);
+                counts[colour]++;
+                cube.stickers[i] = (byte) colour;
+            }
+        }
+        for (int colour = 0; colour < 6; colour++) {
+            if (counts[colour] != cube.faceSize) {
+                cube.reset();
+                throw new IllegalArgumentException("there are " + counts[colour] + " " + LETTERS[colour] + " stickers instead of " + cube.faceSize);
+            }
+        }
+        cube.stickersChanged();
+    }
+
+    private static int letterIndex(char letter) {
+        for (int i = 0; i < 6; i++) {
+            if (LETTERS[i] == letter) return i;
+        }
+        return -1;
+    }
+
+    public static void appendNet(Cube cube, int n, Appendable out, boolean emoji) throws IOException {
+        //laid out like the net view, with U above and D below the L F R B row. Emoji are twice as wide as letters
+        //and the faces in the middle row are spaced apart, so U and D are pushed in to line up over F
+        StickerMap map = MoveTable.forSize(n).map;
+        int indent = emoji ? 2 * n + 1 : n + 1;
+        for (int row = 0; row < n; row++) {
+            appendSpaces(out, indent);
+            appendRow(cube, map, 0, row, out, emoji);
+            out.append('\n');
+        }
+        for (int row = 0; row < n; row++) {
+            for (int face = 1; face <= 4; face++) {
+                if (face > 1) out.append(' ');
+                appendRow(cube, map, face, row, out, emoji);
+            }
+            out.append('\n');
+        }
+        for (int row = 0; row < n; row++) {
+            appendSpaces(out, indent);
+            appendRow(cube, map, 5, row, out, emoji);
+            if (row < n - 1) out.append('\n');
+        }
+    }
+
+    private static void appendSpaces(Appendable out, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            out.append(' ');
+        }
+    }
+
+    private static void appendRow(Cube cube, StickerMap map, int face, int row, Appendable out, boolean emoji) throws IOException {
+        for (int col = 0, i = map.index(face, row, 0); col < map.n; col++, i++) {
+            int colour = colour(cube, map, i);
+            if (emoji) {
+                out.append(EMOJI[colour]);
+            } else {
+                out.append(ASCII[colour]);
+            }
+        }
+    }
+
+    public static String netString(Cube cube, int n, boolean emoji) {
+        //what the cubes' toString gives, ending with a line separator
+        StringBuilder builder = new StringBuilder(emoji ? 16 * n * n + 8 * n : 8 * n * n + 8 * n);
+        try {
+            appendNet(cube, n, builder, emoji);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return builder.append(System.lineSeparator()).toString();
+    }
+}
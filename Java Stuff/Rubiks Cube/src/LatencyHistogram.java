@@ -0,0 +1,65 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+public class LatencyHistogram {
+    /**
+     * Counts of times in nanoseconds, 16 buckets to each power of two, so percentiles are within about 6% and it takes
+     * the same 8KB whether it holds ten times or ten billion. The longest time is kept exactly as well, since the top
+     * bucket alone could be out by that much. Threads can record into it at the same time.
+     */
+    static final int SUB_BUCKETS = 16;
+    private final AtomicLongArray counts = new AtomicLongArray(64 * SUB_BUCKETS);
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    static int bucket(long nanos) {
+        if (nanos < SUB_BUCKETS) return (int) Math.max(nanos, 0);
+        int power = 63 - Long.numberOfLeadingZeros(nanos);
+        //the 4 bits after the highest one pick the bucket within its power of two
+        return (power - 3) * SUB_BUCKETS + (int) (nanos >>> (power - 4) & (SUB_BUCKETS - 1));
+    }
+
+    static long lowestIn(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int power = bucket / SUB_BUCKETS + 3;
+        return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (power - 4);
+    }
+
+    void record(long nanos) {
+        counts.incrementAndGet(bucket(nanos));
+        max.accumulate(nanos);
+    }
+
+    long max() {
+        return max.get();
+    }
+
+    long count() {
+        long total = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    long percentile(double percent) {
+        //the lowest time in the bucket that the percentile falls in, so slightly under rather than over
+        long total = count();
+        long wanted = (long) Math.ceil(total * percent / 100);
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= wanted && seen > 0) return lowestIn(i);
+        }
+        return 0;
+    }
+
+    public String toString() {
+        return String.format("p50 %s, p90 %s, p99 %s, p99.9 %s, max %s", format(percentile(50)), format(percentile(90)),
+                format(percentile(99)), format(percentile(99.9)), format(max()));
+    }
+
+    static String format(long nanos) {
+        if (nanos >= 1000000) return String.format("%.1fms", nanos / 1e6);
+        return String.format("%.1fus", nanos / 1e3);
+    }
+}
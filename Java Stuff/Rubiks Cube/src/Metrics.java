@@ -0,0 +1,78 @@
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+public class Metrics {
+    /**
+     * How many times each kind of operation has happened since the program started, and a LatencyHistogram of how
+     * long they took. Moves and algorithms can come millions and thousands a second, so only one in sampleEvery of
+     * them, picked at random, is timed and counted (as sampleEvery), and their counts are estimates. That way reading
+     * the clock and counting don't end up costing as much as the moves themselves. None of it locks, so it is cheap
+     * enough to leave on, and -Drubiks.metrics=false turns it off, after which start() doesn't even pick a sample.
+     *
+     * The same operations are also Flight Recorder events (see CubeEvents), for seeing them one at a time in a
+     * recording rather than added up.
+     */
+    enum Operation {
+        MOVE("moves", 64),
+        ALGORITHM("algorithms", 8),
+        TEXTURE("textures built", 1),
+        COLOURS("cubie redraws", 1),
+        FRAME("animation frames", 1),
+        INPUT_TO_FRAME("key press to frame", 1);
+
+        final String label;
+        final int sampleEvery;
+
+        Operation(String label, int sampleEvery) {
+            this.label = label;
+            this.sampleEvery = sampleEvery;
+        }
+    }
+
+    static final boolean ENABLED = !"false".equals(System.getProperty("rubiks.metrics"));
+    private static final LongAdder[] counts = new LongAdder[Operation.values().length];
+    private static final LatencyHistogram[] latencies = new LatencyHistogram[Operation.values().length];
+
+    static {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+            latencies[i] = new LatencyHistogram();
+        }
+    }
+
+    static long start(Operation operation) {
+        //the time to pass to record, or 0 if this one isn't being timed
+        if (!ENABLED) return 0;
+        if (operation.sampleEvery > 1 && ThreadLocalRandom.current().nextInt(operation.sampleEvery) != 0) return 0;
+        //each one timed stands for sampleEvery of them, which leaves nothing shared between threads to touch otherwise
+        counts[operation.ordinal()].add(operation.sampleEvery);
+        return System.nanoTime();
+    }
+
+    static void record(Operation operation, long startTime) {
+        if (startTime == 0) return;
+        latencies[operation.ordinal()].record(System.nanoTime() - startTime);
+    }
+
+    static long count(Operation operation) {
+        return counts[operation.ordinal()].sum();
+    }
+
+    static LatencyHistogram latencies(Operation operation) {
+        return latencies[operation.ordinal()];
+    }
+
+    static String report() {
+        //a line for each operation that has happened at all
+        StringBuilder builder = new StringBuilder();
+        for (Operation operation : Operation.values()) {
+            long count = count(operation);
+            if (count == 0) continue;
+            LatencyHistogram histogram = latencies(operation);
+            builder.append(String.format("%-20s%10d", operation.label, count));
+            if (histogram.count() > 0) builder.append("  ").append(histogram);
+            builder.append('\n');
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,168 @@
+public class Move {
+    /**
+     * One token of an algorithm, like R, u', M2 or y. A move doesn't know the size of the cube, so which layers it
+     * covers is only worked out when asked for with a value of n. Layers count from 0, which is the face itself.
+     *
+     * Wide moves (Rw or r) take the outer 2 layers. A number in front picks layers out by hand, counting from 1 like
+     * the usual notation does: 3Rw (or 3r) is the outer 3 layers, 2R is only the second layer, and 2-4Rw (or 2-4r) is
+     * layers 2 to 4. Those moves are kept as the face letter with first and last set, and don't have an index().
+     */
+    static final String FACES = "ULFRBD";
+    static final String WIDE_FACES = "ulfrbd";
+    static final String LETTERS = FACES + WIDE_FACES + "MESxyz";
+    static final int COUNT = LETTERS.length() * 3;
+
+    final char letter;
+    final int turns;
+    //the layers asked for by a number in front of the move, or -1 for the usual layers of the letter
+    final int first, last;
+
+    public Move(char letter, int turns) {
+        this(letter, turns, -1, -1);
+    }
+
+    public Move(char letter, int turns, int first, int last) {
+        if (turns < 1 || turns > 3) throw new IllegalArgumentException("a move has to turn 1, 2 or 3 quarter turns");
+        if (LETTERS.indexOf(letter) < 0) {
+            throw new IllegalArgumentException("unknown move: " + letter);
+        }
+        if (first >= 0 && (FACES.indexOf(letter) < 0 || last < first)) {
+            throw new IllegalArgumentException("layers " + (first + 1) + "-" + (last + 1) + " don't make sense for " + letter);
+        }
+        this.letter = letter;
+        this.turns = turns;
+        this.first = first;
+        this.last = first >= 0 ? last : -1;
+    }
+
+    public static Move parse(String token) throws IllegalArgumentException {
+        if (token.isEmpty()) throw new IllegalArgumentException("empty move");
+        int i = 0;
+        int first = readNumber(token, 0);
+        int last = first;
+        if (first > 0) i = String.valueOf(first).length();
+        if (first > 0 && i < token.length() && token.charAt(i) == '-') {
+            last = readNumber(token, i + 1);
+            if (last <= 0) throw new IllegalArgumentException("could not parse move: " + token);
+            i += 1 + String.valueOf(last).length();
+        }
+        if (i >= token.length()) throw new IllegalArgumentException("could not parse move: " + token);
+        char letter = token.charAt(i++);
+        boolean wide = WIDE_FACES.indexOf(letter) >= 0;
+        if (i < token.length() && token.charAt(i) == 'w' && FACES.indexOf(letter) >= 0) {
+            wide = true;
+            i++;
+        }
+        if (wide) letter = FACES.charAt(Math.max(FACES.indexOf(letter), WIDE_FACES.indexOf(letter)));
+        int turns = 1;
+        if (i < token.length() && token.charAt(i) == '2') {
+            turns = 2;
+            i++;
+        }
+        if (i < token.length() && token.charAt(i) == '\'') {
+            turns = 4 - turns;
+            i++;
+        }
+        if (i != token.length()) throw new IllegalArgumentException("could not parse move: " + token);
+        if (first == 0) return new Move(wide ? WIDE_FACES.charAt(FACES.indexOf(letter)) : letter, turns);
+        if (FACES.indexOf(letter) < 0) throw new IllegalArgumentException("only face moves can have layers: " + token);
+        //a number on its own in front of a wide move is how many layers it takes, so 3Rw is layers 1 to 3
+        if (wide && first == last) first = 1;
+        //write the moves that have a letter of their own that way, so that R and 1R or r and 2Rw come out the same
+        if (first == 1 && last == 1) return new Move(letter, turns);
+        if (first == 1 && last == 2) return new Move(WIDE_FACES.charAt(FACES.indexOf(letter)), turns);
+        return new Move(letter, turns, first - 1, last - 1);
+    }
+
+    private static int readNumber(String token, int start) {
+        //the number at start, or 0 if there isn't one
+        int value = 0;
+        for (int i = start; i < token.length() && Character.isDigit(token.charAt(i)); i++) {
+            value = value * 10 + (token.charAt(i) - '0');
+            if (value > 100000) throw new IllegalArgumentException("layer number too big: " + token);
+        }
+        return value;
+    }
+
+    public static Move[] parseAll(String input) throws IllegalArgumentException {
+        String trimmed = input.trim();
+        if (trimmed.isEmpty()) return new Move[0];
+        String[] tokens = trimmed.split("\\s+");
+        Move[] moves = new Move[tokens.length];
+        for (int i = 0; i < tokens.length; i++) {
+            moves[i] = parse(tokens[i]);
+        }
+        return moves;
+    }
+
+    public static Move fromIndex(int index) {
+        return new Move(LETTERS.charAt(index / 3), index % 3 + 1);
+    }
+
+    public int index() {
+        //every move gets a number below COUNT, with the three turns of each letter next to each other, apart from
+        //moves with layers picked out by hand, which get -1
+        if (first >= 0) return -1;
+        return LETTERS.indexOf(letter) * 3 + turns - 1;
+    }
+
+    public int face() {
+        if (FACES.indexOf(letter) >= 0) return FACES.indexOf(letter);
+        if (WIDE_FACES.indexOf(letter) >= 0) return WIDE_FACES.indexOf(letter);
+        switch (letter) {
+            case 'M': return 1;
+            case 'E': return 5;
+            case 'S': return 2;
+            case 'x': return 3;
+            case 'y': return 0;
+            default: return 2;
+        }
+    }
+
+    public int from(int n) throws IllegalArgumentException {
+        if (first >= 0) {
+            checkLayers(n);
+            return first;
+        }
+        return "MES".indexOf(letter) >= 0 ? 1 : 0;
+    }
+
+    public int to(int n) throws IllegalArgumentException {
+        if (first >= 0) {
+            checkLayers(n);
+            return last;
+        }
+        if (FACES.indexOf(letter) >= 0) return 0;
+        if (WIDE_FACES.indexOf(letter) >= 0) return Math.min(1, n - 1);
+        if ("xyz".indexOf(letter) >= 0) return n - 1;
+        return n - 2;
+    }
+
+    private void checkLayers(int n) throws IllegalArgumentException {
+        if (last >= n) throw new IllegalArgumentException(this + " needs a cube with at least " + (last + 1) + " layers, this one has " + n);
+    }
+
+    public Move inverse() {
+        return new Move(letter, 4 - turns, first, last);
+    }
+
+    public Cube.Turn turn() {
+        switch (turns) {
+            case 1: return Cube.Turn.CLOCKWISE;
+            case 2: return Cube.Turn.TWO;
+            default: return Cube.Turn.ANTICLOCKWISE;
+        }
+    }
+
+    public String toString() {
+        String name = String.valueOf(letter);
+        if (first >= 0 && first == last) name = (first + 1) + name;
+        else if (first == 0) name = (last + 1) + name + "w";
+        else if (first > 0) name = (first + 1) + "-" + (last + 1) + name + "w";
+        switch (turns) {
+            case 2: return name + "2";
+            case 3: return name + "'";
+            default: return name;
+        }
+    }
+}
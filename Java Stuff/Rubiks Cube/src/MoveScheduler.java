@@ -0,0 +1,129 @@
+import javafx.animation.AnimationTimer;
+import javafx.geometry.Point3D;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+
+public class MoveScheduler extends AnimationTimer {
+    /**
+     * Plays the turn animations one after another on a single AnimationTimer. Each move waits in a queue until the
+     * one before it has finished, and its angle is worked out from how long it has been playing rather than counting
+     * frames, so a turn takes the same time however fast the screen redraws.
+     *
+     * A move only reaches the cube when its animation ends, so the colours on screen always match the cube the
+     * cubies are spinning from. If more than maxQueued moves are waiting, the oldest ones (and the one playing) are
+     * done straight away without animating, so typing quickly never leaves the view far behind the keyboard.
+     */
+    //how long a quarter turn takes, a half turn takes half as long again
+    static final long QUARTER_TURN_NANOS = 250_000_000L;
+
+    final Controller controller;
+    final int maxQueued;
+    private final ArrayDeque<Spin> queue = new ArrayDeque<>();
+    private Spin current;
+    private long startTime;
+    private boolean running;
+
+    static class Spin {
+        final Runnable move;
+        final ArrayList<Cubie> cubies;
+        final Point3D axis;
+        final double angle;
+        final long duration;
+
+        Spin(Runnable move, ArrayList<Cubie> cubies, Cube.Turn turn, Point3D axis) {
+            this.move = move;
+            this.cubies = cubies;
+            this.axis = axis;
+            switch (turn) {
+                case CLOCKWISE: angle = 90; break;
+                case ANTICLOCKWISE: angle = -90; break;
+                default: angle = 180; break;
+            }
+            duration = turn == Cube.Turn.TWO ? QUARTER_TURN_NANOS * 3 / 2 : QUARTER_TURN_NANOS;
+        }
+    }
+
+    public MoveScheduler(Controller controller, int maxQueued) {
+        if (maxQueued < 0) throw new IllegalArgumentException("the queue can't have a negative length");
+        this.controller = controller;
+        this.maxQueued = maxQueued;
+    }
+
+    public void add(Runnable move, ArrayList<Cubie> cubies, Cube.Turn turn, Point3D axis) {
+        queue.add(new Spin(move, cubies, turn, axis));
+        if (queue.size() > maxQueued) {
+            //too far behind, so skip to the end of everything but the newest maxQueued moves
+            finish();
+            while (queue.size() > maxQueued) {
+                queue.remove().move.run();
+            }
+            controller.updateChanged();
+            startTime = -1;
+        }
+        if (!running) {
+            running = true;
+            startTime = -1;
+            start();
+        }
+    }
+
+    public void finishAll() {
+        //does every move that is still waiting straight away, for anything that is about to use the cube directly
+        finish();
+        while (!queue.isEmpty()) {
+            queue.remove().move.run();
+        }
+        controller.updateChanged();
+        stop();
+    }
+
+    @Override
+    public void stop() {
+        super.stop();
+        running = false;
+    }
+
+    @Override
+    public void handle(long now) {
+        long frameStart = Metrics.start(Metrics.Operation.FRAME);
+        CubeEvents.FrameEvent event = CubeEvents.beginFrame();
+        if (startTime < 0) startTime = now;
+        int finished = 0;
+        while (true) {
+            if (current == null) {
+                if (queue.isEmpty()) break;
+                current = queue.remove();
+                for (Cubie cubie : current.cubies) {
+                    cubie.spin.setAxis(current.axis);
+                }
+            }
+            if (now - startTime < current.duration) break;
+            //the next move starts when this one was due to end, not on the next frame, so none of the time is lost
+            startTime += current.duration;
+            finish();
+            finished++;
+        }
+        if (finished > 0) controller.updateChanged();
+        if (current == null) {
+            stop();
+        } else {
+            double angle = current.angle * (now - startTime) / current.duration;
+            for (Cubie cubie : current.cubies) {
+                cubie.spin.setAngle(angle);
+            }
+        }
+        Metrics.record(Metrics.Operation.FRAME, frameStart);
+        CubeEvents.commitFrame(event, finished, queue.size());
+    }
+
+    private void finish() {
+        //puts the cubies back and does the move on the cube, the caller redraws them
+        if (current == null) return;
+        for (Cubie cubie : current.cubies) {
+            cubie.spin.setAngle(0);
+        }
+        current.move.run();
+        current = null;
+    }
+}
@@ -0,0 +1,125 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class MoveTable {
+    /**
+     * Every single-layer quarter turn for a cube of size n, worked out once and shared by all cubes of that size.
+     * layers[face*n + layer] is a flat list of 4-cycles of sticker indices, where the colour on the first sticker of
+     * each group moves to the second, the second to the third and so on, for a clockwise turn of that layer as seen
+     * from the face. Layer 0 is the face itself and layer n-1 is the far side of the cube (which includes the opposite
+     * face). Any face, slice, wide or rotation move is then a run of these layers applied in one pass.
+     *
+     * faces, rows and cols are the same cycles without the ones on the turning face or the one opposite, just the ring
+     * going round the layer, split into the face, row and column of each sticker. They are for ArrayCube, which keeps
+     * its stickers as faceColours[face][row][col] and turns whole faces in place, which is quicker there.
+     *
+     * It also holds the random keys for the cubes' Zobrist hashes: a state's hash is the XOR of
+     * zobrist[sticker * 6 + colour] over every sticker, so a move only has to XOR out the old keys and XOR in the new
+     * ones for the stickers it moves.
+     */
+    private static final ConcurrentHashMap<Integer, MoveTable> tables = new ConcurrentHashMap<>();
+    //fixed, so that a state hashes the same in every run and hashes can be written to files
+    private static final long ZOBRIST_SEED = 0x6a09e667f3bcc908L;
+
+    int n;
+    StickerMap map;
+    int[][] layers;
+    int[][] faces, rows, cols;
+    long[] zobrist;
+
+    private MoveTable(int n) {
+        this.n = n;
+        map = new StickerMap(n);
+        layers = new int[6 * n][];
+        for (int face = 0; face < 6; face++) {
+            int[][] matrix = StickerMap.clockwise(face);
+            int[] counts = new int[n];
+            for (int sticker = 0; sticker < map.size; sticker++) {
+                counts[map.depth(sticker, face)]++;
+            }
+            int[] filled = new int[n];
+            for (int layer = 0; layer < n; layer++) {
+                //the only stickers that don't move are the centre stickers of odd cubes, and they never count towards a cycle
+                layers[face * n + layer] = new int[counts[layer] - counts[layer] % 4];
+            }
+            boolean[] seen = new boolean[map.size];
+            for (int sticker = 0; sticker < map.size; sticker++) {
+                if (seen[sticker]) continue;
+                int next = map.transform(sticker, matrix);
+                if (next == sticker) {
+                    seen[sticker] = true;
+                    continue;
+                }
+                int layer = map.depth(sticker, face);
+                int[] cycles = layers[face * n + layer];
+                int current = sticker;
+                for (int i = 0; i < 4; i++) {
+                    seen[current] = true;
+                    cycles[filled[layer]++] = current;
+                    current = map.transform(current, matrix);
+                }
+            }
+        }
+        faces = new int[layers.length][];
+        rows = new int[layers.length][];
+        cols = new int[layers.length][];
+        for (int i = 0; i < layers.length; i++) {
+            int face = i / n;
+            int[] cycles = layers[i];
+            //a cycle is either all on the turning face, all on the opposite one or all on the ring
+            int ring = 0;
+            for (int sticker : cycles) {
+                if (sticker / map.faceSize != face && sticker / map.faceSize != StickerMap.OPPOSITE[face]) ring++;
+            }
+            faces[i] = new int[ring];
+            rows[i] = new int[ring];
+            cols[i] = new int[ring];
+            ring = 0;
+            for (int sticker : cycles) {
+                if (sticker / map.faceSize == face || sticker / map.faceSize == StickerMap.OPPOSITE[face]) continue;
+                faces[i][ring] = sticker / map.faceSize;
+                rows[i][ring] = sticker % map.faceSize / n;
+                cols[i][ring++] = sticker % n;
+            }
+        }
+        zobrist = new long[6 * map.size];
+        SplittableRandom random = new SplittableRandom(ZOBRIST_SEED + n);
+        for (int i = 0; i < zobrist.length; i++) {
+            zobrist[i] = random.nextLong();
+        }
+    }
+
+    public static MoveTable forSize(int n) {
+        return tables.computeIfAbsent(n, MoveTable::new);
+    }
+
+    public long hash(byte[] stickers) {
+        //the whole hash of a PackedCube sticker array, for when too much has changed to update it
+        long hash = 0;
+        for (int i = 0; i < map.size; i++) {
+            hash ^= zobrist[i * 6 + stickers[i]];
+        }
+        return hash;
+    }
+
+    public int[] layer(int face, int layer) {
+        return layers[face * n + layer];
+    }
+
+    public void apply(int[] state, int face, int from, int to, int turns) {
+        //the same as PackedCube's turns, for int labelled states that are used to build whole permutations
+        int buffer;
+        for (int layer = from; layer <= to; layer++) {
+            int[] cycles = layers[face * n + layer];
+            for (int k = 0; k < turns; k++) {
+                for (int i = 0; i < cycles.length; i += 4) {
+                    buffer = state[cycles[i + 3]];
+                    state[cycles[i + 3]] = state[cycles[i + 2]];
+                    state[cycles[i + 2]] = state[cycles[i + 1]];
+                    state[cycles[i + 1]] = state[cycles[i]];
+                    state[cycles[i]] = buffer;
+                }
+            }
+        }
+    }
+}
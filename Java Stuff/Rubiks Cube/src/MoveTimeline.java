@@ -0,0 +1,202 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+public class MoveTimeline {
+    /**
+     * Every move done to a cube since the timeline was started, so they can be undone and redone and a long solve can
+     * be gone back over. Moves are kept one byte each: their index() if they have one, or else a code for one of the
+     * few moves with layers picked out by hand (like 2-4Rw) that have been seen so far. A move that doesn't fit in a
+     * byte either way is kept in a map by its position instead, which on any normal cube never happens.
+     *
+     * Undo does the inverse of the move before the current position and redo does the move after it, one move each.
+     * A copy of all the stickers is also taken every CHECKPOINT_INTERVAL moves, so going to any position (seek) only
+     * has to put back the nearest checkpoint, before or after, and do or undo at most half an interval of moves from
+     * there. 100,000 moves of a 3x3 take about 100KB of moves and 21KB of checkpoints.
+     *
+     * A move done after some undos starts a new line of moves from there, and the ones that could have been redone
+     * are dropped, like in a text editor.
+     */
+    static final int CHECKPOINT_INTERVAL = 256;
+    //codes from Move.COUNT up are for moves with their layers picked out, and OVERFLOW is for the rest
+    private static final int OVERFLOW = 255;
+
+    final Cube cube;
+    final int n;
+    private byte[] codes = new byte[1024];
+    //moves that can be undone, and that plus the ones that can be redone
+    private int position, length;
+    //checkpoints[i] is every sticker after i * CHECKPOINT_INTERVAL moves
+    private byte[][] checkpoints = new byte[16][];
+    private final List<Move> layerMoves = new ArrayList<>();
+    private final Map<String, Integer> layerMoveCodes = new HashMap<>();
+    private final Map<Integer, Move> overflow = new HashMap<>();
+
+    public MoveTimeline(Cube cube, int n) {
+        this.cube = cube;
+        this.n = n;
+        restart();
+    }
+
+    public void restart() {
+        //forgets every move and starts again from however the cube is now
+        position = 0;
+        length = 0;
+        Arrays.fill(checkpoints, null);
+        checkpoints[0] = snapshot();
+        layerMoves.clear();
+        layerMoveCodes.clear();
+        overflow.clear();
+    }
+
+    public int position() {
+        return position;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public boolean canUndo() {
+        return position > 0;
+    }
+
+    public boolean canRedo() {
+        return position < length;
+    }
+
+    public void apply(Move move) throws IllegalArgumentException {
+        cube.apply(move);
+        record(move);
+    }
+
+    public void doAlgorithm(String input) throws IllegalArgumentException {
+        //one move at a time rather than with the cube's own doAlgorithm, so every move gets recorded and checkpoints
+        //land where they should. Anything that doesn't parse is found before any of it is done, and it is simplified
+        //the same way doAlgorithm does, so R R R R is no moves here as well
+        Move[] moves = Move.parseAll(input);
+        for (Move move : moves) {
+            move.to(n);
+        }
+        for (Move move : Simplifier.simplify(moves, n)) {
+            apply(move);
+        }
+    }
+
+    public void record(Move move) {
+        //for a move that has already been done to the cube
+        if (position < length) truncate();
+        if (position == codes.length) codes = Arrays.copyOf(codes, codes.length * 2);
+        codes[position] = encode(move);
+        position++;
+        length = position;
+        if (position % CHECKPOINT_INTERVAL == 0) {
+            int checkpoint = position / CHECKPOINT_INTERVAL;
+            if (checkpoint == checkpoints.length) checkpoints = Arrays.copyOf(checkpoints, checkpoints.length * 2);
+            checkpoints[checkpoint] = snapshot();
+        }
+    }
+
+    private void truncate() {
+        //drops the moves after the current position, and the checkpoints that were taken after them
+        for (int i = position / CHECKPOINT_INTERVAL + 1; i < checkpoints.length && checkpoints[i] != null; i++) {
+            checkpoints[i] = null;
+        }
+        if (!overflow.isEmpty()) {
+            for (Iterator<Integer> it = overflow.keySet().iterator(); it.hasNext(); ) {
+                if (it.next() >= position) it.remove();
+            }
+        }
+        length = position;
+    }
+
+    private byte encode(Move move) {
+        int index = move.index();
+        if (index >= 0) return (byte) index;
+        String name = move.toString();
+        Integer code = layerMoveCodes.get(name);
+        if (code == null && Move.COUNT + layerMoves.size() < OVERFLOW) {
+            code = Move.COUNT + layerMoves.size();
+            layerMoves.add(move);
+            layerMoveCodes.put(name, code);
+        }
+        if (code != null) return (byte) (int) code;
+        overflow.put(position, move);
+        return (byte) OVERFLOW;
+    }
+
+    public Move moveAt(int i) {
+        //the move that takes the cube from position i to position i + 1
+        if (i < 0 || i >= length) throw new IndexOutOfBoundsException("there are " + length + " moves, not " + (i + 1));
+        int code = codes[i] & 0xff;
+        if (code < Move.COUNT) return Move.fromIndex(code);
+        if (code == OVERFLOW) return overflow.get(i);
+        return layerMoves.get(code - Move.COUNT);
+    }
+
+    public Move undoMove() {
+        //the move undo is about to do, for animating it first
+        return moveAt(position - 1).inverse();
+    }
+
+    public Move redoMove() {
+        return moveAt(position);
+    }
+
+    public void undo() {
+        if (!canUndo()) throw new IllegalStateException("nothing to undo");
+        cube.apply(undoMove());
+        position--;
+    }
+
+    public void redo() {
+        if (!canRedo()) throw new IllegalStateException("nothing to redo");
+        cube.apply(redoMove());
+        position++;
+    }
+
+    public void seek(int target) {
+        //puts the cube how it was after the first target moves, from whichever of here, the checkpoint before target
+        //and the one after it is fewest moves away
+        if (target < 0 || target > length) throw new IndexOutOfBoundsException("can't go to move " + target + " of " + length);
+        int before = target / CHECKPOINT_INTERVAL;
+        int after = before + 1;
+        int best = Math.abs(target - position), start = position;
+        if (target - before * CHECKPOINT_INTERVAL < best) {
+            best = target - before * CHECKPOINT_INTERVAL;
+            start = before * CHECKPOINT_INTERVAL;
+        }
+        if (after < checkpoints.length && checkpoints[after] != null && after * CHECKPOINT_INTERVAL - target < best) {
+            start = after * CHECKPOINT_INTERVAL;
+        }
+        if (start != position) {
+            cube.setStickers(checkpoints[start / CHECKPOINT_INTERVAL]);
+            position = start;
+        }
+        while (position < target) {
+            redo();
+        }
+        while (position > target) {
+            undo();
+        }
+    }
+
+    private byte[] snapshot() {
+        byte[] stickers = new byte[6 * n * n];
+        cube.getStickers(stickers);
+        return stickers;
+    }
+
+    public String toString() {
+        //the moves up to the current position, as an algorithm
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < position; i++) {
+            if (i > 0) builder.append(' ');
+            builder.append(moveAt(i));
+        }
+        return builder.toString();
+    }
+}
@@ -34,7 +34,7 @@ public class Net {
         return g.snapshot(null,null);
     }
 
-    private static Color getColour(Cube.Colour c) {
+    static Color getColour(Cube.Colour c) {
         switch (c) {
             case RED: return Color.RED;
             case GREEN: return Color.GREEN;
@@ -0,0 +1,230 @@
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+public class NetRenderer {
+    /**
+     * Draws a cube straight into an int[] of RGB pixels without JavaFX, so images can be made on a server with no
+     * display. It can draw the unfolded net (U on top, then L F R B, then D under F) or an isometric view showing the
+     * U, F and R faces.
+     *
+     * Which sticker every pixel belongs to is worked out once in the constructor, so drawing a cube is just looking
+     * up its 6*n*n colours and then copying one of them into each pixel. A renderer never changes after it is made,
+     * so one can be shared by any number of threads as long as each has its own pixel array.
+     */
+    enum Layout {NET, ISOMETRIC}
+
+    //the same colours as the JavaFX ones the 3D view uses, by Colour ordinal
+    static final int[] RGB = {0xFFFF00, 0xFFFFFF, 0xFFA500, 0xFF0000, 0x008000, 0x0000FF, 0x000000};
+    static final int BACKGROUND = 0x808080;
+    //the black gap round each sticker, as a fraction of the sticker
+    static final double GAP = 0.06;
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+
+    final int n;
+    final int stickerSize;
+    final Layout layout;
+    final int width, height;
+    final StickerMap map;
+    //the sticker each pixel shows, with map.size for the background and map.size + 1 for the black gaps
+    private final int[] pixelStickers;
+
+    public NetRenderer(int n, int stickerSize, Layout layout) {
+        if (n < 1) throw new IllegalArgumentException("the cube has to be at least 1x1");
+        if (stickerSize < 2) throw new IllegalArgumentException("stickers have to be at least 2 pixels across");
+        this.n = n;
+        this.stickerSize = stickerSize;
+        this.layout = layout;
+        map = MoveTable.forSize(n).map;
+        int margin = stickerSize / 2;
+        if (layout == Layout.NET) {
+            width = 4 * n * stickerSize + 2 * margin;
+            height = 3 * n * stickerSize + 2 * margin;
+        } else {
+            width = (int) Math.ceil(2 * n * stickerSize * Math.cos(Math.PI / 6)) + 2 * margin;
+            height = 2 * n * stickerSize + 2 * margin;
+        }
+        pixelStickers = new int[width * height];
+        for (int py = 0; py < height; py++) {
+            for (int px = 0; px < width; px++) {
+                //sampled in the middle of the pixel
+                double x = (px + 0.5 - margin) / stickerSize, y = (py + 0.5 - margin) / stickerSize;
+                pixelStickers[py * width + px] = layout == Layout.NET ? netSticker(x, y) : isometricSticker(x, y);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        //renders each line of a file of algorithms (applied to a solved cube) to a numbered PNG in the output folder
+        if (args.length < 2) {
+            System.out.println("usage: NetRenderer algorithms-file output-folder [n] [sticker size] [net|isometric] [threads]");
+            return;
+        }
+        Path output = Paths.get(args[1]);
+        int n = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        int stickerSize = args.length > 3 ? Integer.parseInt(args[3]) : 20;
+        Layout layout = args.length > 4 ? Layout.valueOf(args[4].toUpperCase()) : Layout.NET;
+        int threads = args.length > 5 ? Integer.parseInt(args[5]) : Runtime.getRuntime().availableProcessors();
+        Files.createDirectories(output);
+        long startTime = System.nanoTime();
+        int count;
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(args[0]), StandardCharsets.UTF_8)) {
+            count = new NetRenderer(n, stickerSize, layout).writeAll(reader, output, threads);
+        }
+        System.err.println(count + " images in " + (System.nanoTime() - startTime) / 1000000 + "ms");
+    }
+
+    private int netSticker(double x, double y) {
+        //faces are n stickers across, laid out on a 4 by 3 grid of them
+        int[] faceAtCell = {-1, 0, -1, -1, 1, 2, 3, 4, -1, 5, -1, -1};
+        if (x < 0 || y < 0 || x >= 4 * n || y >= 3 * n) return map.size;
+        int face = faceAtCell[(int) (y / n) * 4 + (int) (x / n)];
+        if (face < 0) return map.size;
+        double col = x % n, row = y % n;
+        if (isGap(col) || isGap(row)) return map.size + 1;
+        return map.index(face, (int) row, (int) col);
+    }
+
+    private int isometricSticker(double x, double y) {
+        //cube coordinates X,Y,Z (Y going down) are drawn at ((X + Z) cos 30, Y + (X - Z) sin 30), with the top of the
+        //picture lined up with the back corner of U
+        double c = Math.cos(Math.PI / 6), s = 0.5;
+        y -= n * s;
+        //U is the plane Y = 0
+        double ux = (x / c + y / s) / 2, uz = (x / c - y / s) / 2;
+        if (inside(ux) && inside(uz)) return isGap(ux) || isGap(uz) ? map.size + 1 : map.stickerAt((int) ux, 0, (int) uz, 0);
+        //F is the plane Z = 0
+        double fx = x / c, fy = y - fx * s;
+        if (inside(fx) && inside(fy)) return isGap(fx) || isGap(fy) ? map.size + 1 : map.stickerAt((int) fx, (int) fy, 0, 2);
+        //R is the plane X = n
+        double rz = x / c - n, ry = y - (n - rz) * s;
+        if (inside(rz) && inside(ry)) return isGap(rz) || isGap(ry) ? map.size + 1 : map.stickerAt(n - 1, (int) ry, (int) rz, 3);
+        return map.size;
+    }
+
+    private boolean inside(double v) {
+        return v >= 0 && v < n;
+    }
+
+    private static boolean isGap(double v) {
+        double fraction = v - Math.floor(v);
+        return fraction < GAP || fraction > 1 - GAP;
+    }
+
+    public int[] render(Cube cube, int[] pixels) {
+        //pixels has to hold width * height, and is filled in row by row
+        if (pixels.length < pixelStickers.length) throw new IllegalArgumentException("need room for " + pixelStickers.length + " pixels");
+        int[] colours = new int[map.size + 2];
+        for (int i = 0; i < map.size; i++) {
+            colours[i] = RGB[cube.getFaceColour(map.xs[i], map.ys[i], map.zs[i], map.face(i)).ordinal()];
+        }
+        colours[map.size] = BACKGROUND;
+        colours[map.size + 1] = RGB[Cube.Colour.BLACK.ordinal()];
+        for (int p = 0; p < pixelStickers.length; p++) {
+            pixels[p] = colours[pixelStickers[p]];
+        }
+        return pixels;
+    }
+
+    public BufferedImage newImage() {
+        return new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    }
+
+    public BufferedImage render(Cube cube, BufferedImage image) {
+        //draws straight into the image's own pixel array, so nothing gets copied
+        render(cube, ((DataBufferInt) image.getRaster().getDataBuffer()).getData());
+        return image;
+    }
+
+    public void writePng(Cube cube, OutputStream out) throws IOException {
+        //a PNG with an 8 colour palette, one byte a pixel, which deflates far quicker than ImageIO's full colour ones
+        byte[] palette = new byte[map.size + 2];
+        for (int i = 0; i < map.size; i++) {
+            palette[i] = (byte) cube.getFaceColour(map.xs[i], map.ys[i], map.zs[i], map.face(i)).ordinal();
+        }
+        palette[map.size] = (byte) (RGB.length);
+        palette[map.size + 1] = (byte) Cube.Colour.BLACK.ordinal();
+        //every row starts with a 0, meaning it isn't filtered
+        byte[] rows = new byte[(width + 1) * height];
+        for (int y = 0, p = 0; y < height; y++) {
+            int row = y * (width + 1) + 1;
+            for (int x = 0; x < width; x++) {
+                rows[row + x] = palette[pixelStickers[p++]];
+            }
+        }
+        ByteArrayOutputStream header = new ByteArrayOutputStream(13);
+        DataOutputStream headerData = new DataOutputStream(header);
+        headerData.writeInt(width);
+        headerData.writeInt(height);
+        //8 bit palette colour, then the default compression, filtering and no interlacing
+        headerData.write(new byte[]{8, 3, 0, 0, 0});
+        byte[] colours = new byte[3 * (RGB.length + 1)];
+        for (int i = 0; i <= RGB.length; i++) {
+            int rgb = i < RGB.length ? RGB[i] : BACKGROUND;
+            colours[3 * i] = (byte) (rgb >> 16);
+            colours[3 * i + 1] = (byte) (rgb >> 8);
+            colours[3 * i + 2] = (byte) rgb;
+        }
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(rows.length / 8);
+        try (DeflaterOutputStream deflate = new DeflaterOutputStream(compressed, deflater, 1 << 14)) {
+            deflate.write(rows);
+        } finally {
+            deflater.end();
+        }
+        DataOutputStream data = new DataOutputStream(out);
+        data.write(PNG_SIGNATURE);
+        writeChunk(data, "IHDR", header.toByteArray());
+        writeChunk(data, "PLTE", colours);
+        writeChunk(data, "IDAT", compressed.toByteArray());
+        writeChunk(data, "IEND", new byte[0]);
+        data.flush();
+    }
+
+    private static void writeChunk(DataOutputStream out, String type, byte[] bytes) throws IOException {
+        //length, type, data and then a CRC of the type and data
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(bytes);
+        out.writeInt(bytes.length);
+        out.write(typeBytes);
+        out.write(bytes);
+        out.writeInt((int) crc.getValue());
+    }
+
+    int writeAll(BufferedReader algorithms, Path folder, int threads) throws IOException, InterruptedException {
+        //each worker keeps its own cube, only the pixel lookup is shared
+        ThreadLocal<Cube> cubes = ThreadLocal.withInitial(() -> new PackedCube(n));
+        int count = 0;
+        try (OrderedPipeline<Void> pipeline = new OrderedPipeline<>(threads, "could not render an image", done -> { })) {
+            String line;
+            while ((line = algorithms.readLine()) != null) {
+                String algorithm = line.trim();
+                Path file = folder.resolve(String.format("%06d.png", count++));
+                pipeline.submit(() -> {
+                    Cube cube = cubes.get();
+                    cube.reset();
+                    //move by move like BatchApply, as every line is a different algorithm and compiling each one
+                    //would only fill up the cache doAlgorithm shares between threads
+                    for (Move move : Move.parseAll(algorithm)) {
+                        cube.apply(move);
+                    }
+                    try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+                        writePng(cube, out);
+                    }
+                    return null;
+                });
+            }
+            pipeline.finish();
+        }
+        return count;
+    }
+}
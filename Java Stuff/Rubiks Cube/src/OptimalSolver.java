@@ -0,0 +1,200 @@
+import java.util.ArrayList;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+public class OptimalSolver {
+    /**
+     * Finds a shortest possible solution for the 3x3 (in face turns, a half turn counting as one) with Korf's IDA*:
+     * depth first searches to 1 move, then 2 and so on, cutting off every branch where one of the OptimalTables pattern
+     * databases says the cube is further from solved than the moves left. The first solution found is as short as any.
+     *
+     * Random states usually need 17 or 18 moves, which means looking at billions of positions, so each depth is split
+     * up by its first SPLIT_DEPTH moves into tasks for a fork/join pool, and whichever thread finds a solution stops
+     * the rest. Nodes are counted in a LongAdder so threads never fight over the count, and a Listener (if given) is
+     * told the depth, node count and speed every REPORT_INTERVAL while it searches.
+     *
+     * Unlike TwoPhaseSolver one solver can be shared by any number of threads, each search keeps its own state.
+     */
+    static final int SPLIT_DEPTH = 2;
+    static final long REPORT_INTERVAL = 1000;
+    //nodes are added to the total and the stop flag is checked this often
+    private static final int CHECK_EVERY = 1 << 14;
+
+    interface Listener {
+        void progress(int depth, long nodes, long nodesPerSecond);
+    }
+
+    final OptimalTables tables;
+    final ForkJoinPool pool;
+
+    public OptimalSolver() {
+        this(OptimalTables.get(), ForkJoinPool.commonPool());
+    }
+
+    public OptimalSolver(OptimalTables tables, ForkJoinPool pool) {
+        this.tables = tables;
+        this.pool = pool;
+    }
+
+    public static void main(String[] args) {
+        //solves the algorithm given, or a random state if there isn't one
+        long startTime = System.currentTimeMillis();
+        OptimalSolver solver = new OptimalSolver();
+        System.out.println("Tables ready in " + (System.currentTimeMillis() - startTime) + "ms");
+        Cube cube = new PackedCube(3);
+        if (args.length > 0) {
+            cube.doAlgorithm(String.join(" ", args));
+        } else {
+            System.out.println(cube.shuffle(false, 30));
+        }
+        startTime = System.nanoTime();
+        Search search = solver.new Search(TwoPhaseSolver.readCube(cube));
+        String solution = search.run((depth, nodes, nodesPerSecond) ->
+                System.err.println("depth " + depth + ", " + nodes + " nodes, " + nodesPerSecond + " nodes/s"));
+        long micros = (System.nanoTime() - startTime) / 1000;
+        System.out.println(solution + " (" + search.depth + " moves, " + search.nodes.sum() + " nodes, " + micros / 1000 + "ms)");
+        cube.doAlgorithm(solution);
+        System.out.println(cube);
+    }
+
+    public String solve(Cube cube) throws IllegalArgumentException {
+        return solve(TwoPhaseSolver.readCube(cube), null);
+    }
+
+    public String solve(CubieCube cube, Listener listener) throws IllegalArgumentException {
+        return new Search(cube).run(listener);
+    }
+
+    private static boolean skip(int face, int lastFace) {
+        //the same rule as TwoPhaseSolver, never the same face twice and opposite faces only in one order
+        return face == lastFace || (lastFace >= 0 && StickerMap.OPPOSITE[face] == lastFace && face < lastFace);
+    }
+
+    class Search {
+        final int corners, edges0, edges1;
+        final LongAdder nodes = new LongAdder();
+        final AtomicReference<int[]> solution = new AtomicReference<>();
+        volatile int depth;
+
+        Search(CubieCube cube) throws IllegalArgumentException {
+            if (!cube.isSolvable()) throw new IllegalArgumentException("this cube can't be solved, a piece has been twisted, flipped or swapped");
+            corners = OptimalTables.getCorners(cube);
+            edges0 = OptimalTables.getEdges(cube, OptimalTables.EDGE_GROUPS[0]);
+            edges1 = OptimalTables.getEdges(cube, OptimalTables.EDGE_GROUPS[1]);
+        }
+
+        String run(Listener listener) {
+            ScheduledExecutorService reporter = null;
+            if (listener != null) {
+                reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "optimal solver progress");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                long startTime = System.nanoTime();
+                reporter.scheduleAtFixedRate(() -> {
+                    long count = nodes.sum();
+                    long elapsed = Math.max(1, System.nanoTime() - startTime);
+                    listener.progress(depth, count, (long) (count * 1e9 / elapsed));
+                }, REPORT_INTERVAL, REPORT_INTERVAL, TimeUnit.MILLISECONDS);
+            }
+            try {
+                depth = prune(corners, edges0, edges1);
+                while (true) {
+                    pool.invoke(new Branch(this, new int[depth], corners, edges0, edges1, 0, -1));
+                    if (solution.get() != null) break;
+                    depth++;
+                }
+            } finally {
+                if (reporter != null) reporter.shutdownNow();
+            }
+            StringBuilder moves = new StringBuilder();
+            for (int m : solution.get()) {
+                if (moves.length() > 0) moves.append(' ');
+                moves.append(Move.fromIndex(m));
+            }
+            return moves.toString();
+        }
+    }
+
+    private int prune(int corners, int edges0, int edges1) {
+        int distance = tables.cornerPrune.get(corners);
+        distance = Math.max(distance, tables.edgePrune[0].get(edges0));
+        return Math.max(distance, tables.edgePrune[1].get(edges1));
+    }
+
+    private class Branch extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        final Search search;
+        //the moves so far, filled in up to length, with room for the whole solution
+        final int[] moves;
+        final int corners, edges0, edges1, length, lastFace;
+        private long count;
+
+        Branch(Search search, int[] moves, int corners, int edges0, int edges1, int length, int lastFace) {
+            this.search = search;
+            this.moves = moves;
+            this.corners = corners;
+            this.edges0 = edges0;
+            this.edges1 = edges1;
+            this.length = length;
+            this.lastFace = lastFace;
+        }
+
+        protected void compute() {
+            if (length < SPLIT_DEPTH && length < moves.length) {
+                ArrayList<Branch> branches = new ArrayList<>();
+                for (int m = 0; m < OptimalTables.N_MOVES; m++) {
+                    int face = m / 3;
+                    if (skip(face, lastFace)) continue;
+                    int newCorners = moveCorners(corners, m);
+                    int newEdges0 = tables.moveEdges(edges0, m), newEdges1 = tables.moveEdges(edges1, m);
+                    if (prune(newCorners, newEdges0, newEdges1) >= moves.length - length) continue;
+                    int[] newMoves = moves.clone();
+                    newMoves[length] = m;
+                    branches.add(new Branch(search, newMoves, newCorners, newEdges0, newEdges1, length + 1, face));
+                }
+                invokeAll(branches);
+            } else {
+                search(corners, edges0, edges1, length, lastFace);
+                search.nodes.add(count);
+            }
+        }
+
+        private int moveCorners(int corners, int m) {
+            int perm = corners / OptimalTables.N_TWIST, twist = corners % OptimalTables.N_TWIST;
+            return tables.cornerPermMove.get(perm * OptimalTables.N_MOVES + m) * OptimalTables.N_TWIST
+                    + tables.twistMove.get(twist * OptimalTables.N_MOVES + m);
+        }
+
+        private boolean search(int corners, int edges0, int edges1, int depth, int lastFace) {
+            if (++count % CHECK_EVERY == 0) {
+                search.nodes.add(count);
+                count = 0;
+            }
+            int togo = moves.length - depth;
+            if (togo == 0) {
+                //every pattern is only at distance 0 when it is solved, so this is the solved cube
+                if (prune(corners, edges0, edges1) != 0) return false;
+                search.solution.compareAndSet(null, moves.clone());
+                return true;
+            }
+            if (search.solution.get() != null) return true;
+            for (int m = 0; m < OptimalTables.N_MOVES; m++) {
+                int face = m / 3;
+                if (skip(face, lastFace)) continue;
+                //the corners are the cheapest to look up and cut off the most
+                int newCorners = moveCorners(corners, m);
+                if (tables.cornerPrune.get(newCorners) >= togo) continue;
+                int newEdges0 = tables.moveEdges(edges0, m);
+                if (tables.edgePrune[0].get(newEdges0) >= togo) continue;
+                int newEdges1 = tables.moveEdges(edges1, m);
+                if (tables.edgePrune[1].get(newEdges1) >= togo) continue;
+                moves[depth] = m;
+                if (search(newCorners, newEdges0, newEdges1, depth + 1, face)) return true;
+            }
+            return false;
+        }
+    }
+}
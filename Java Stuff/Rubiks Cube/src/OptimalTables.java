@@ -0,0 +1,168 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.IntStream;
+
+public class OptimalTables {
+    /**
+     * Move tables and pattern databases for OptimalSolver, the same ones Korf used: one for the corners (every
+     * permutation and twist, 88 million states) and one each for two halves of the edges (where 6 of the edges are and
+     * how they are flipped, 42 million states each). Each pattern database is a PruningTable of exact distances, so
+     * the biggest of the three is a lower bound on the moves left.
+     *
+     * All of it is about 150MB and takes a few minutes to build on one core, so like TwoPhaseTables it is built once,
+     * written to TABLE_FILE and memory mapped from then on. Freshly built tables live in a direct buffer, so either way
+     * none of it is on the Java heap.
+     */
+    static final int MAGIC = 0x52434f50;
+    static final int VERSION = 1;
+    static final Path TABLE_FILE = Paths.get(System.getProperty("rubiks.optimalTables", System.getProperty("user.home") + "/.rubiks-cube/optimal.tables"));
+
+    static final int N_MOVES = 18;
+    static final int N_TWIST = TwoPhaseTables.N_TWIST;
+    static final int N_CORNER_PERM = TwoPhaseTables.N_PERM_8;
+    static final int N_CORNERS = N_CORNER_PERM * N_TWIST;
+    //where 6 edges are, 12 * 11 * 10 * 9 * 8 * 7, and then 2^6 ways of flipping them
+    static final int N_PLACEMENTS = 665280;
+    static final int N_EDGES = N_PLACEMENTS * 64;
+    //the two halves of the edges, by the first edge of each
+    static final int[] EDGE_GROUPS = {0, 6};
+
+    private static OptimalTables instance;
+
+    CharBuffer cornerPermMove, twistMove;
+    IntBuffer placementMove;
+    //the flips that a move gives the 6 edges of a placement, as a 6 bit mask
+    ByteBuffer flipMove;
+    PruningTable cornerPrune;
+    PruningTable[] edgePrune = new PruningTable[2];
+
+    private OptimalTables(ByteBuffer buffer) {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        int position = 8;
+        cornerPermMove = TableFile.section(buffer, position, 2 * N_CORNER_PERM * N_MOVES).asCharBuffer();
+        position += 2 * N_CORNER_PERM * N_MOVES;
+        twistMove = TableFile.section(buffer, position, 2 * N_TWIST * N_MOVES).asCharBuffer();
+        position += 2 * N_TWIST * N_MOVES;
+        placementMove = TableFile.section(buffer, position, 4 * N_PLACEMENTS * N_MOVES).asIntBuffer();
+        position += 4 * N_PLACEMENTS * N_MOVES;
+        flipMove = TableFile.section(buffer, position, N_PLACEMENTS * N_MOVES);
+        position += N_PLACEMENTS * N_MOVES;
+        cornerPrune = new PruningTable(TableFile.section(buffer, position, PruningTable.bytesFor(N_CORNERS)), N_CORNERS);
+        position += PruningTable.bytesFor(N_CORNERS);
+        for (int group = 0; group < 2; group++) {
+            edgePrune[group] = new PruningTable(TableFile.section(buffer, position, PruningTable.bytesFor(N_EDGES)), N_EDGES);
+            position += PruningTable.bytesFor(N_EDGES);
+        }
+    }
+
+    static int fileSize() {
+        return 8 + 2 * N_MOVES * (N_CORNER_PERM + N_TWIST) + 5 * N_MOVES * N_PLACEMENTS
+                + PruningTable.bytesFor(N_CORNERS) + 2 * PruningTable.bytesFor(N_EDGES);
+    }
+
+    public static synchronized OptimalTables get() {
+        if (instance == null) instance = load(TABLE_FILE);
+        return instance;
+    }
+
+    static OptimalTables load(Path file) {
+        return new OptimalTables(TableFile.load(file, fileSize(), MAGIC, VERSION, "optimal solver tables", OptimalTables::generate));
+    }
+
+    static ByteBuffer generate() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(fileSize()).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        OptimalTables tables = new OptimalTables(buffer);
+        IntStream.range(0, N_CORNER_PERM).parallel().forEach(perm -> {
+            CubieCube cube = new CubieCube();
+            for (int m = 0; m < N_MOVES; m++) {
+                cube.reset();
+                cube.setCornerPermutation(perm);
+                cube.move(m);
+                tables.cornerPermMove.put(perm * N_MOVES + m, (char) cube.getCornerPermutation());
+            }
+        });
+        IntStream.range(0, N_TWIST).parallel().forEach(twist -> {
+            CubieCube cube = new CubieCube();
+            for (int m = 0; m < N_MOVES; m++) {
+                cube.reset();
+                cube.setTwist(twist);
+                cube.move(m);
+                tables.twistMove.put(twist * N_MOVES + m, (char) cube.getTwist());
+            }
+        });
+        IntStream.range(0, N_PLACEMENTS).parallel().forEach(placement -> {
+            //the 6 edges start unflipped, so whatever flips they have afterwards is what the move does to them
+            CubieCube cube = new CubieCube();
+            for (int m = 0; m < N_MOVES; m++) {
+                cube.reset();
+                setPlacement(cube, placement);
+                cube.move(m);
+                int edges = getEdges(cube, 0);
+                tables.placementMove.put(placement * N_MOVES + m, edges >>> 6);
+                tables.flipMove.put(placement * N_MOVES + m, (byte) (edges & 63));
+            }
+        });
+        PruningTable.build(tables.cornerPrune.nibbles, N_CORNERS, N_MOVES, (index, m) ->
+                tables.cornerPermMove.get(index / N_TWIST * N_MOVES + m) * N_TWIST + tables.twistMove.get(index % N_TWIST * N_MOVES + m), 0);
+        for (int group = 0; group < 2; group++) {
+            CubieCube solved = new CubieCube();
+            PruningTable.build(tables.edgePrune[group].nibbles, N_EDGES, N_MOVES, tables::moveEdges, getEdges(solved, EDGE_GROUPS[group]));
+        }
+        return buffer;
+    }
+
+    int moveEdges(int edges, int m) {
+        int placement = edges >>> 6;
+        return placementMove.get(placement * N_MOVES + m) << 6 | ((edges & 63) ^ flipMove.get(placement * N_MOVES + m));
+    }
+
+    static int getCorners(CubieCube cube) {
+        return cube.getCornerPermutation() * N_TWIST + cube.getTwist();
+    }
+
+    static int getEdges(CubieCube cube, int first) {
+        //the positions of edges first..first+5 ranked in order, each one counted among the positions the ones before
+        //it left free, then their flips as the low 6 bits
+        int used = 0, placement = 0, flips = 0;
+        int[] positions = new int[6];
+        for (int i = 0; i < 12; i++) {
+            int edge = cube.ep[i] - first;
+            if (edge >= 0 && edge < 6) positions[edge] = i;
+        }
+        for (int k = 0; k < 6; k++) {
+            int position = positions[k];
+            placement = placement * (12 - k) + Integer.bitCount(~used & ((1 << position) - 1));
+            used |= 1 << position;
+            flips |= cube.eo[position] << k;
+        }
+        return placement << 6 | flips;
+    }
+
+    static void setPlacement(CubieCube cube, int placement) {
+        //puts edges 0-5 where the placement says, unflipped, and the other edges in the positions left over
+        int[] digits = new int[6];
+        for (int k = 5; k >= 0; k--) {
+            digits[k] = placement % (12 - k);
+            placement /= 12 - k;
+        }
+        int used = 0;
+        for (int k = 0; k < 6; k++) {
+            int position = 0;
+            for (int count = digits[k]; (used & 1 << position) != 0 || count > 0; position++) {
+                if ((used & 1 << position) == 0) count--;
+            }
+            used |= 1 << position;
+            cube.ep[position] = (byte) k;
+        }
+        for (int i = 0, other = 6; i < 12; i++) {
+            if ((used & 1 << i) == 0) cube.ep[i] = (byte) other++;
+            cube.eo[i] = 0;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.*;
+
+public class OrderedPipeline<T> implements AutoCloseable {
+    /**
+     * Runs tasks on a fixed pool of threads and hands their results on in the order the tasks were submitted, for
+     * the batch tools (BatchApply, BatchSolver, NetRenderer and ScrambleGenerator) that write one result for each line
+     * or chunk of work. Only two tasks per thread are ever waiting: submit waits for the oldest one to finish and
+     * hands its result on before taking another, so nothing reads further ahead than the workers can keep up with,
+     * and memory stays the same however long the input is.
+     *
+     * A task that throws stops the whole run with a RuntimeException carrying what it threw. close() stops the pool,
+     * so it belongs in a try-with-resources, and finish() has to be called at the end for the last results.
+     */
+    interface Output<T> {
+        void accept(T result) throws IOException;
+    }
+
+    final int threads;
+    private final ExecutorService pool;
+    private final ArrayDeque<Future<T>> pending = new ArrayDeque<>();
+    private final Output<T> output;
+    //what went wrong, for the exception when a task fails
+    private final String failure;
+
+    public OrderedPipeline(int threads, String failure, Output<T> output) {
+        if (threads < 1) throw new IllegalArgumentException("need at least one thread");
+        this.threads = threads;
+        this.failure = failure;
+        this.output = output;
+        pool = Executors.newFixedThreadPool(threads);
+    }
+
+    public void submit(Callable<T> task) throws IOException, InterruptedException {
+        pending.add(pool.submit(task));
+        if (pending.size() >= 2 * threads) next();
+    }
+
+    public void finish() throws IOException, InterruptedException {
+        while (!pending.isEmpty()) {
+            next();
+        }
+    }
+
+    private void next() throws IOException, InterruptedException {
+        try {
+            output.accept(pending.remove().get());
+        } catch (ExecutionException e) {
+            throw new RuntimeException(failure, e.getCause());
+        }
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+}
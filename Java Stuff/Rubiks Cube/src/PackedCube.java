@@ -0,0 +1,327 @@
+import java.util.*;
+import java.util.function.IntConsumer;
+
+public class PackedCube implements Cube {
+    /**
+     * Same cube as ArrayCube, but every sticker is a single byte in one flat array instead of a Colour reference in
+     * Colour[6][n][n]. The sticker at (face,row,col) lives at face*n*n + row*n + col, and its value is the index of the
+     * colour in COLOURS, which is the same face order as the net view (white,orange,green,red,blue,yellow).
+     * Moves don't work anything out at turn time, they just run through the shared MoveTable for this size.
+     *
+     * Two cubes are equal when they are the same size with the same stickers. The 64 bit hash is only worked out the
+     * first time something asks for it, and from then on every move keeps it up to date from just the stickers it
+     * moves, so cubes that are never hashed don't pay for it. A cube is still mutable though, so one used as a map key
+     * mustn't be turned while it's in the map.
+     */
+    static final Colour[] COLOURS = {Colour.WHITE, Colour.ORANGE, Colour.GREEN, Colour.RED, Colour.BLUE, Colour.YELLOW};
+    //the index in COLOURS by Colour ordinal
+    static final byte[] COLOUR_INDEX = new byte[Colour.values().length];
+
+    static {
+        for (byte i = 0; i < COLOURS.length; i++) {
+            COLOUR_INDEX[COLOURS[i].ordinal()] = i;
+        }
+    }
+
+    byte[] stickers;
+    int n;
+    int faceSize;
+    MoveTable table;
+    private byte[] scratch;
+    ChangedStickers changed;
+    long hash;
+    //whether hash is being kept up to date
+    boolean hashing;
+
+    boolean nextMoveIsWide;
+
+    public PackedCube(int n) {
+        this.n = n;
+        faceSize = n * n;
+        nextMoveIsWide = false;
+        stickers = new byte[6 * faceSize];
+        table = MoveTable.forSize(n);
+        changed = new ChangedStickers(stickers.length);
+        reset();
+    }
+
+    public int index(int face, int row, int col) {
+        return face * faceSize + row * n + col;
+    }
+
+    public String toString(){
+        return Facelets.netString(this, n, true);
+    }
+
+    public static void main(String[] args) {
+        Cube cube = new PackedCube(3);
+        System.out.println(cube.shuffle(false,20));
+        System.out.println(cube);
+    }
+
+    private int getTurns(Turn turn) {
+        switch(turn) {
+            case CLOCKWISE:
+                return 1;
+            case ANTICLOCKWISE:
+                return 3;
+            case TWO:
+                return 2;
+        }
+        return 0;
+    }
+
+    public void setNextMoveIsWide(boolean wide) {
+        nextMoveIsWide = wide;
+    }
+
+    public Turn inverseTurn(Turn turn) {
+        switch (turn) {
+            case NONE:
+                return Turn.NONE;
+            case CLOCKWISE:
+                return Turn.ANTICLOCKWISE;
+            case ANTICLOCKWISE:
+                return Turn.CLOCKWISE;
+            case TWO:
+                return Turn.TWO;
+        }
+        return null;
+    }
+
+    private void turnLayers(int face, int from, int to, Turn turn) {
+        //turns layers from..to (0 being the face itself) of the given face together, like one wide move
+        int turns = getTurns(turn);
+        if (turns == 0) return;
+        long startTime = Metrics.start(Metrics.Operation.MOVE);
+        CubeEvents.MoveEvent event = CubeEvents.beginMove();
+        if (hashing) {
+            turnLayersHashed(face, from, to, turns);
+        } else {
+            turnLayersUnhashed(face, from, to, turns);
+        }
+        Metrics.record(Metrics.Operation.MOVE, startTime);
+        CubeEvents.commitMove(event, face, from, to, turns, "PackedCube");
+    }
+
+    private void turnLayersUnhashed(int face, int from, int to, int turns) {
+        byte buffer;
+        for (int layer = from; layer <= to; layer++) {
+            int[] cycles = table.layer(face, layer);
+            changed.add(cycles);
+            switch (turns) {
+                case 1:
+                    for (int i = 0; i < cycles.length; i += 4) {
+                        buffer = stickers[cycles[i + 3]];
+                        stickers[cycles[i + 3]] = stickers[cycles[i + 2]];
+                        stickers[cycles[i + 2]] = stickers[cycles[i + 1]];
+                        stickers[cycles[i + 1]] = stickers[cycles[i]];
+                        stickers[cycles[i]] = buffer;
+                    }
+                    break;
+                case 2:
+                    for (int i = 0; i < cycles.length; i += 4) {
+                        buffer = stickers[cycles[i]];
+                        stickers[cycles[i]] = stickers[cycles[i + 2]];
+                        stickers[cycles[i + 2]] = buffer;
+                        buffer = stickers[cycles[i + 1]];
+                        stickers[cycles[i + 1]] = stickers[cycles[i + 3]];
+                        stickers[cycles[i + 3]] = buffer;
+                    }
+                    break;
+                case 3:
+                    for (int i = 0; i < cycles.length; i += 4) {
+                        buffer = stickers[cycles[i]];
+                        stickers[cycles[i]] = stickers[cycles[i + 1]];
+                        stickers[cycles[i + 1]] = stickers[cycles[i + 2]];
+                        stickers[cycles[i + 2]] = stickers[cycles[i + 3]];
+                        stickers[cycles[i + 3]] = buffer;
+                    }
+                    break;
+            }
+        }
+    }
+
+    private void turnLayersHashed(int face, int from, int to, int turns) {
+        //the same turn, but each sticker that moves also has the key for its old colour XORed out of the hash and the
+        //key for its new one XORed in
+        long[] keys = table.zobrist;
+        long hash = this.hash;
+        for (int layer = from; layer <= to; layer++) {
+            int[] cycles = table.layer(face, layer);
+            changed.add(cycles);
+            for (int i = 0; i < cycles.length; i += 4) {
+                int a = cycles[i], b = cycles[i + 1], c = cycles[i + 2], d = cycles[i + 3];
+                byte colourA = stickers[a], colourB = stickers[b], colourC = stickers[c], colourD = stickers[d];
+                byte newA, newB, newC, newD;
+                if (turns == 1) {
+                    newA = colourD; newB = colourA; newC = colourB; newD = colourC;
+                } else if (turns == 2) {
+                    newA = colourC; newB = colourD; newC = colourA; newD = colourB;
+                } else {
+                    newA = colourB; newB = colourC; newC = colourD; newD = colourA;
+                }
+                stickers[a] = newA;
+                stickers[b] = newB;
+                stickers[c] = newC;
+                stickers[d] = newD;
+                a *= 6;
+                b *= 6;
+                c *= 6;
+                d *= 6;
+                hash ^= keys[a + colourA] ^ keys[a + newA] ^ keys[b + colourB] ^ keys[b + newB]
+                        ^ keys[c + colourC] ^ keys[c + newC] ^ keys[d + colourD] ^ keys[d + newD];
+            }
+        }
+        this.hash = hash;
+    }
+
+    private void turnFace(Turn turn, int face) {
+        //a wide move takes the next layer in with the face
+        int to = 0;
+        if (nextMoveIsWide && getTurns(turn) != 0) {
+            nextMoveIsWide = false;
+            to = Math.min(1, n - 1);
+        }
+        turnLayers(face, 0, to, turn);
+    }
+
+    public void doAlgorithm(String input) throws IllegalArgumentException {
+        long startTime = Metrics.start(Metrics.Operation.ALGORITHM);
+        CubeEvents.AlgorithmEvent event = CubeEvents.beginAlgorithm();
+        Algorithm.compile(input, n).applyTo(this);
+        Metrics.record(Metrics.Operation.ALGORITHM, startTime);
+        CubeEvents.commitAlgorithm(event, input, n, "PackedCube");
+    }
+
+    public void apply(Move move) {
+        turnLayers(move.face(), move.from(n), move.to(n), move.turn());
+    }
+
+    byte[] scratch() {
+        //spare sticker array for applying whole permutations, kept so that doAlgorithm doesn't allocate
+        if (scratch == null) scratch = new byte[stickers.length];
+        return scratch;
+    }
+
+    public void Up(Turn turn) {
+        turnFace(turn,0);
+    }
+
+    public void Down(Turn turn) {
+        turnFace(turn,5);
+    }
+
+    public void Left(Turn turn) {
+        turnFace(turn,1);
+    }
+
+    public void Right(Turn turn) {
+        turnFace(turn,3);
+    }
+
+    public void Front(Turn turn) {
+        turnFace(turn,2);
+    }
+
+    public void Back(Turn turn) {
+        turnFace(turn,4);
+    }
+
+    public void x(Turn turn) {
+        turnLayers(3,0,n-1,turn);
+    }
+    public void y(Turn turn) {
+        turnLayers(0,0,n-1,turn);
+    }
+    public void z(Turn turn) {
+        turnLayers(2,0,n-1,turn);
+    }
+
+    public void M(Turn turn) {turnLayers(1,1,n-2,turn);}
+    public void E(Turn turn) {turnLayers(5,1,n-2,turn);}
+    public void S(Turn turn) {turnLayers(2,1,n-2,turn);}
+
+    public String turnByFaceNumber(int face,Turn turn) {
+        switch (face) {
+            case 0: Up(turn); return "U";
+            case 1: Left(turn); return "L";
+            case 2: Front(turn); return "F";
+            case 3: Right(turn); return "R";
+            case 4: Back(turn); return "B";
+            case 5: Down(turn); return "D";
+            default: return "";
+        }
+    }
+
+    public void reset() {
+        for (int face = 0; face < 6; face++) {
+            Arrays.fill(stickers, face * faceSize, (face + 1) * faceSize, (byte) face);
+        }
+        stickersChanged();
+    }
+
+    public void getStickers(byte[] into) {
+        System.arraycopy(stickers, 0, into, 0, stickers.length);
+    }
+
+    public void setStickers(byte[] from) {
+        System.arraycopy(from, 0, stickers, 0, stickers.length);
+        stickersChanged();
+    }
+
+    void stickersChanged() {
+        //for anything that writes to stickers directly instead of turning the cube
+        if (hashing) hash = table.hash(stickers);
+        changed.addAll();
+    }
+
+    public long stateHash() {
+        if (!hashing) {
+            hash = table.hash(stickers);
+            hashing = true;
+        }
+        return hash;
+    }
+
+    public boolean equals(Object o) {
+        if (!(o instanceof PackedCube)) return false;
+        PackedCube other = (PackedCube) o;
+        if (n != other.n) return false;
+        //hashes that are both being kept can rule most cubes out without looking at the stickers
+        if (hashing && other.hashing && hash != other.hash) return false;
+        return Arrays.equals(stickers, other.stickers);
+    }
+
+    public int hashCode() {
+        long hash = stateHash();
+        return (int) (hash ^ hash >>> 32);
+    }
+
+    public String shuffle(boolean giveSolution,int shuffleLength) {
+        return ScrambleGenerator.shuffle(this, giveSolution, shuffleLength);
+    }
+
+    public void drainChangedStickers(IntConsumer consumer) {
+        changed.drain(consumer);
+    }
+
+    public Colour getFaceColour(int x, int y, int z, int face) {
+        switch (face) {
+            case 0:
+                return COLOURS[stickers[index(face, n-z-1, x)]];
+            case 1:
+                return COLOURS[stickers[index(face, y, n-z-1)]];
+            case 2:
+                return COLOURS[stickers[index(face, y, x)]];
+            case 3:
+                return COLOURS[stickers[index(face, y, z)]];
+            case 4:
+                return COLOURS[stickers[index(face, y, n-x-1)]];
+            case 5:
+                return COLOURS[stickers[index(face, z, x)]];
+            default:
+                return Colour.ORANGE;
+        }
+    }
+}
@@ -0,0 +1,250 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.IntStream;
+
+public class PocketSolver {
+    /**
+     * Optimal solves for the 2x2 by looking them up. A 2x2 has no centres, so every state can be turned as a whole
+     * until the DBL corner is home, and then U, F and R (which never move DBL) are enough to reach the other 7!*3^6 =
+     * 3,674,160 states. One breadth first search gives the distance to solved (in face turns) of every one of them as
+     * a PruningTable, under 2MB, which is saved to TABLE_FILE and memory mapped like TwoPhaseTables.
+     *
+     * With that, the distance to solved is a single lookup, and an optimal solution is found by taking whichever
+     * move goes one step closer at each step, at most 11 moves of 9 lookups each.
+     */
+    static final int MAGIC = 0x52435032;
+    static final int VERSION = 1;
+    static final Path TABLE_FILE = Paths.get(System.getProperty("rubiks.pocketTable", System.getProperty("user.home") + "/.rubiks-cube/pocket.table"));
+
+    //U, F and R in each direction, as move indices
+    static final int[] MOVES = {0, 1, 2, 6, 7, 8, 9, 10, 11};
+    static final int N_MOVES = MOVES.length;
+    //the 7 corners other than DBL, in the order they make up the permutation and twist
+    static final int[] CORNERS = {0, 1, 2, 3, 4, 5, 7};
+    static final int FIXED_CORNER = 6;
+    static final int N_PERM = 5040;
+    static final int N_TWIST = 729;
+    static final int N_STATES = N_PERM * N_TWIST;
+    //the moves for each of the 24 ways of holding the cube, the first being no moves at all
+    static final int[][] ROTATIONS = rotations();
+
+    private static PocketSolver instance;
+
+    CharBuffer permMove, twistMove;
+    PruningTable distances;
+
+    private PocketSolver(ByteBuffer buffer) {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        int position = 8;
+        permMove = TableFile.section(buffer, position, 2 * N_PERM * N_MOVES).asCharBuffer();
+        position += 2 * N_PERM * N_MOVES;
+        twistMove = TableFile.section(buffer, position, 2 * N_TWIST * N_MOVES).asCharBuffer();
+        position += 2 * N_TWIST * N_MOVES;
+        distances = new PruningTable(TableFile.section(buffer, position, PruningTable.bytesFor(N_STATES)), N_STATES);
+    }
+
+    static int fileSize() {
+        return 8 + 2 * N_MOVES * (N_PERM + N_TWIST) + PruningTable.bytesFor(N_STATES);
+    }
+
+    public static synchronized PocketSolver get() {
+        if (instance == null) instance = load(TABLE_FILE);
+        return instance;
+    }
+
+    public static void main(String[] args) {
+        long startTime = System.currentTimeMillis();
+        PocketSolver solver = get();
+        System.out.println("Table ready in " + (System.currentTimeMillis() - startTime) + "ms");
+        long[] counts = solver.countByDistance();
+        for (int distance = 0; distance < counts.length; distance++) {
+            System.out.println(distance + ": " + counts[distance]);
+        }
+        Cube cube = new PackedCube(2);
+        System.out.println(cube.shuffle(false, 30));
+        startTime = System.nanoTime();
+        String solution = solver.solve(cube);
+        System.out.println(solution + " (" + (System.nanoTime() - startTime) / 1000 + "us)");
+        cube.doAlgorithm(solution);
+        System.out.println(cube);
+    }
+
+    static PocketSolver load(Path file) {
+        return new PocketSolver(TableFile.load(file, fileSize(), MAGIC, VERSION, "2x2 solver tables", PocketSolver::generate));
+    }
+
+    static ByteBuffer generate() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(fileSize()).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        PocketSolver tables = new PocketSolver(buffer);
+        IntStream.range(0, N_PERM).parallel().forEach(perm -> {
+            CubieCube cube = new CubieCube();
+            for (int k = 0; k < N_MOVES; k++) {
+                cube.reset();
+                setPermutation(cube, perm);
+                cube.move(MOVES[k]);
+                tables.permMove.put(perm * N_MOVES + k, (char) getPermutation(cube));
+            }
+        });
+        IntStream.range(0, N_TWIST).parallel().forEach(twist -> {
+            CubieCube cube = new CubieCube();
+            for (int k = 0; k < N_MOVES; k++) {
+                cube.reset();
+                setTwist(cube, twist);
+                cube.move(MOVES[k]);
+                tables.twistMove.put(twist * N_MOVES + k, (char) getTwist(cube));
+            }
+        });
+        PruningTable.build(tables.distances.nibbles, N_STATES, N_MOVES, tables::next, 0);
+        return buffer;
+    }
+
+    private static int[][] rotations() {
+        //every holding reachable with x and y, found breadth first so each one takes as few rotations as it can
+        int[] turns = {Move.LETTERS.indexOf('x') * 3, Move.LETTERS.indexOf('y') * 3};
+        List<int[]> found = new ArrayList<>();
+        HashSet<String> seen = new HashSet<>();
+        found.add(new int[0]);
+        seen.add(centres(new int[0]));
+        for (int i = 0; i < found.size(); i++) {
+            for (int turn : turns) {
+                int[] moves = Arrays.copyOf(found.get(i), found.get(i).length + 1);
+                moves[moves.length - 1] = turn;
+                if (seen.add(centres(moves))) found.add(moves);
+            }
+        }
+        return found.toArray(new int[0][]);
+    }
+
+    private static String centres(int[] moves) {
+        CubieCube cube = new CubieCube();
+        for (int m : moves) {
+            cube.move(m);
+        }
+        return Arrays.toString(cube.centres);
+    }
+
+    int next(int state, int k) {
+        return permMove.get(state / N_TWIST * N_MOVES + k) * N_TWIST + twistMove.get(state % N_TWIST * N_MOVES + k);
+    }
+
+    static int getPermutation(CubieCube cube) {
+        //the corners other than DBL, with piece 7 counted as 6 so they make a permutation of 0-6
+        byte[] perm = new byte[CORNERS.length];
+        for (int i = 0; i < CORNERS.length; i++) {
+            int piece = cube.cp[CORNERS[i]];
+            perm[i] = (byte) (piece == 7 ? FIXED_CORNER : piece);
+        }
+        return CubieCube.permutationIndex(perm);
+    }
+
+    static void setPermutation(CubieCube cube, int index) {
+        byte[] perm = new byte[CORNERS.length];
+        CubieCube.setPermutation(perm, index);
+        for (int i = 0; i < CORNERS.length; i++) {
+            cube.cp[CORNERS[i]] = perm[i] == FIXED_CORNER ? 7 : perm[i];
+        }
+        cube.cp[FIXED_CORNER] = FIXED_CORNER;
+    }
+
+    static int getTwist(CubieCube cube) {
+        //DBL is never twisted and the last corner's twist follows from the rest, which leaves the first 6
+        int twist = 0;
+        for (int i = 0; i < 6; i++) {
+            twist = 3 * twist + cube.co[CORNERS[i]];
+        }
+        return twist;
+    }
+
+    static void setTwist(CubieCube cube, int twist) {
+        int sum = 0;
+        for (int i = 5; i >= 0; i--) {
+            cube.co[CORNERS[i]] = (byte) (twist % 3);
+            sum += twist % 3;
+            twist /= 3;
+        }
+        cube.co[FIXED_CORNER] = 0;
+        cube.co[7] = (byte) ((3 - sum % 3) % 3);
+    }
+
+    static CubieCube readCube(Cube cube) throws IllegalArgumentException {
+        //puts the 2x2's stickers on the corners of an otherwise solved 3x3, which has its centres where the colours
+        //started. The cube has to be a 2x2, since Cube can't say what size it is
+        StickerMap map = MoveTable.forSize(2).map;
+        StickerMap big = MoveTable.forSize(3).map;
+        byte[] stickers = new byte[54];
+        new CubieCube().toStickers(stickers);
+        for (int i = 0; i < map.size; i++) {
+            Cube.Colour colour = cube.getFaceColour(map.xs[i], map.ys[i], map.zs[i], map.face(i));
+            int face = i / 4, row = i % 4 / 2, col = i % 2;
+            stickers[big.index(face, 2 * row, 2 * col)] = PackedCube.COLOUR_INDEX[colour.ordinal()];
+        }
+        CubieCube pieces = CubieCube.fromStickers(stickers);
+        int seen = 0, twist = 0;
+        for (int i = 0; i < 8; i++) {
+            seen |= 1 << pieces.cp[i];
+            twist += pieces.co[i];
+        }
+        if (seen != 0xff || twist % 3 != 0) throw new IllegalArgumentException("this 2x2 can't be solved, a corner has been twisted or is there twice");
+        return pieces;
+    }
+
+    private static CubieCube holdWithDblHome(CubieCube pieces) {
+        //turns the whole cube until the DBL corner is home, and its centres then say where each face came from
+        CubieCube held = new CubieCube();
+        for (int[] rotation : ROTATIONS) {
+            held.copyFrom(pieces);
+            for (int m : rotation) {
+                held.move(m);
+            }
+            if (held.cp[FIXED_CORNER] == FIXED_CORNER && held.co[FIXED_CORNER] == 0) return held;
+        }
+        throw new IllegalStateException("no way of holding the cube puts DBL home");
+    }
+
+    static int getState(CubieCube held) {
+        return getPermutation(held) * N_TWIST + getTwist(held);
+    }
+
+    public int distance(Cube cube) throws IllegalArgumentException {
+        //the fewest face turns that solve a 2x2
+        return distances.get(getState(holdWithDblHome(readCube(cube))));
+    }
+
+    public String solve(Cube cube) throws IllegalArgumentException {
+        //an optimal solution for a 2x2, in terms of how it is held right now
+        CubieCube held = holdWithDblHome(readCube(cube));
+        int state = getState(held);
+        StringBuilder solution = new StringBuilder();
+        for (int distance = distances.get(state); distance > 0; distance--) {
+            int k = 0;
+            while (distances.get(next(state, k)) != distance - 1) k++;
+            state = next(state, k);
+            //the face that is at the move's face once DBL is home is where that face is now
+            int m = MOVES[k];
+            if (solution.length() > 0) solution.append(' ');
+            solution.append(new Move(Move.FACES.charAt(held.centres[m / 3]), m % 3 + 1));
+        }
+        return solution.toString();
+    }
+
+    public long[] countByDistance() {
+        //how many states are each number of moves from solved, the last entry being the furthest any state is
+        long[] counts = new long[PruningTable.EMPTY];
+        int furthest = 0;
+        for (int state = 0; state < N_STATES; state++) {
+            int distance = distances.get(state);
+            counts[distance]++;
+            furthest = Math.max(furthest, distance);
+        }
+        return Arrays.copyOf(counts, furthest + 1);
+    }
+}
@@ -0,0 +1,128 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+public class PruningTable {
+    /**
+     * A table of how many moves each state of some coordinate is from solved, 4 bits per state, packed two to a byte
+     * with the even state in the low half. Reading is straight out of a ByteBuffer, so the table can live in a memory
+     * mapped file or off the heap.
+     *
+     * build() fills one in with a breadth first search that hands each depth to a fork/join pool. While it runs, the
+     * nibbles are kept 8 to an int in an AtomicIntegerArray and written with compare-and-set, so threads can mark
+     * states next to each other without any locking. Early depths go forwards from the states just reached, and once
+     * more than half the table is filled it switches to going backwards from the states still left, which is much
+     * less work at that point. 15 means not reached, so distances have to stay below that.
+     */
+    static final int EMPTY = 15;
+    private static final int CHUNK = 1 << 14;
+
+    interface Neighbours {
+        //the state reached from index by a move, the moves have to include each other's inverses
+        int next(int index, int move);
+    }
+
+    final ByteBuffer nibbles;
+    final int size;
+
+    public PruningTable(ByteBuffer nibbles, int size) {
+        this.nibbles = nibbles;
+        this.size = size;
+    }
+
+    public int get(int index) {
+        return (nibbles.get(index >>> 1) >>> ((index & 1) << 2)) & 0xf;
+    }
+
+    static int bytesFor(int size) {
+        return (size + 7) / 8 * 4;
+    }
+
+    public static PruningTable build(ByteBuffer out, int size, int moves, Neighbours neighbours, int solved) {
+        return build(out, size, moves, neighbours, solved, ForkJoinPool.commonPool());
+    }
+
+    public static PruningTable build(ByteBuffer out, int size, int moves, Neighbours neighbours, int solved, ForkJoinPool pool) {
+        AtomicIntegerArray cells = new AtomicIntegerArray((size + 7) / 8);
+        for (int i = 0; i < cells.length(); i++) {
+            cells.set(i, -1);
+        }
+        fill(cells, solved, 0);
+        long done = 1;
+        for (int depth = 0; done < size && depth < EMPTY - 1; depth++) {
+            boolean backwards = done > size / 2;
+            long added = pool.invoke(new Layer(cells, neighbours, moves, depth, backwards, 0, size));
+            if (added == 0) break;
+            done += added;
+        }
+        out.order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < cells.length(); i++) {
+            out.putInt(4 * i, cells.get(i));
+        }
+        return new PruningTable(out, size);
+    }
+
+    static int cell(AtomicIntegerArray cells, int index) {
+        return (cells.get(index >>> 3) >>> ((index & 7) << 2)) & 0xf;
+    }
+
+    static boolean fill(AtomicIntegerArray cells, int index, int value) {
+        //only ever fills in an empty entry, and says whether this call was the one that did it
+        int shift = (index & 7) << 2;
+        while (true) {
+            int old = cells.get(index >>> 3);
+            if (((old >>> shift) & 0xf) != EMPTY) return false;
+            int updated = (old & ~(0xf << shift)) | (value << shift);
+            if (cells.compareAndSet(index >>> 3, old, updated)) return true;
+        }
+    }
+
+    private static class Layer extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+        final AtomicIntegerArray cells;
+        final Neighbours neighbours;
+        final int moves, depth, from, to;
+        final boolean backwards;
+
+        Layer(AtomicIntegerArray cells, Neighbours neighbours, int moves, int depth, boolean backwards, int from, int to) {
+            this.cells = cells;
+            this.neighbours = neighbours;
+            this.moves = moves;
+            this.depth = depth;
+            this.backwards = backwards;
+            this.from = from;
+            this.to = to;
+        }
+
+        protected Long compute() {
+            if (to - from > CHUNK) {
+                int middle = (from + to) >>> 1;
+                Layer left = new Layer(cells, neighbours, moves, depth, backwards, from, middle);
+                left.fork();
+                long right = new Layer(cells, neighbours, moves, depth, backwards, middle, to).compute();
+                return right + left.join();
+            }
+            long added = 0;
+            for (int i = from; i < to; i++) {
+                int value = cell(cells, i);
+                if (backwards) {
+                    if (value != EMPTY) continue;
+                    for (int m = 0; m < moves; m++) {
+                        if (cell(cells, neighbours.next(i, m)) == depth) {
+                            if (fill(cells, i, depth + 1)) added++;
+                            break;
+                        }
+                    }
+                } else {
+                    if (value != depth) continue;
+                    for (int m = 0; m < moves; m++) {
+                        if (fill(cells, neighbours.next(i, m), depth + 1)) added++;
+                    }
+                }
+            }
+            return added;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+public class ScrambleGenerator {
+    /**
+     * Random move scrambles of an exact length, made only of face turns (U L F R B D), without any move that undoes
+     * or merges with the one before it. A face is never turned twice in a row, and opposite faces are only turned in
+     * one order (U before D, L before R, F before B), so U D U and D U are never produced either.
+     *
+     * Scrambles are made in chunks of CHUNK, and each chunk gets its own SplittableRandom split off the seed in order,
+     * so write() gives the same output for the same seed however many threads it is run on. Each chunk is written
+     * straight into a byte array, and the chunks are written out in order by an OrderedPipeline as they finish.
+     */
+    static final int CHUNK = 1024;
+    //the longest token is 2 characters, plus a space or newline after each one
+    private static final int MAX_BYTES_PER_MOVE = 3;
+    private static final byte[][] TOKENS = new byte[18][];
+    private static final SplittableRandom ROOT = new SplittableRandom();
+    private static final ThreadLocal<SplittableRandom> LOCAL = ThreadLocal.withInitial(ScrambleGenerator::splitRoot);
+
+    static {
+        for (int m = 0; m < 18; m++) {
+            TOKENS[m] = Move.fromIndex(m).toString().getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    final long seed;
+    final int length;
+
+    public ScrambleGenerator(long seed, int length) {
+        if (length < 0) throw new IllegalArgumentException("a scramble can't have a negative length");
+        this.seed = seed;
+        this.length = length;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        //count, then optionally length, seed, threads and an output file (stdout if there isn't one)
+        if (args.length < 1) {
+            System.out.println("usage: ScrambleGenerator count [length] [seed] [threads] [file]");
+            return;
+        }
+        long count = Long.parseLong(args[0]);
+        int length = args.length > 1 ? Integer.parseInt(args[1]) : 25;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        OutputStream out = args.length > 4 ? new FileOutputStream(args[4]) : System.out;
+        long startTime = System.nanoTime();
+        try (OutputStream stream = new BufferedOutputStream(out, 1 << 16)) {
+            new ScrambleGenerator(seed, length).write(stream, count, threads);
+        }
+        System.err.println(count + " scrambles in " + (System.nanoTime() - startTime) / 1000000 + "ms");
+    }
+
+    private static synchronized SplittableRandom splitRoot() {
+        return ROOT.split();
+    }
+
+    static boolean allowed(int face, int lastFace) {
+        return face != lastFace && !(lastFace >= 0 && StickerMap.OPPOSITE[face] == lastFace && face < lastFace);
+    }
+
+    public static void next(SplittableRandom random, int[] moves, int length) {
+        //fills the first length entries of moves with Move indices, which for face turns are face * 3 + turns - 1
+        int lastFace = -1;
+        for (int i = 0; i < length; i++) {
+            int face;
+            do {
+                face = random.nextInt(6);
+            } while (!allowed(face, lastFace));
+            moves[i] = face * 3 + random.nextInt(3);
+            lastFace = face;
+        }
+    }
+
+    public static String shuffle(Cube cube, boolean giveSolution, int shuffleLength) {
+        //what every Cube's shuffle does: reset, then turn a fresh scramble of exactly shuffleLength moves
+        cube.reset();
+        int[] moves = new int[shuffleLength];
+        next(LOCAL.get(), moves, shuffleLength);
+        StringBuilder history = new StringBuilder();
+        for (int i = 0; i < shuffleLength; i++) {
+            Move move = Move.fromIndex(moves[i]);
+            turn(cube, move);
+            if (i > 0) history.append(' ');
+            history.append(move);
+        }
+        if (!giveSolution) return history.toString();
+        history.append('\n');
+        for (int i = shuffleLength - 1; i >= 0; i--) {
+            history.append(Move.fromIndex(moves[i]).inverse());
+            if (i > 0) history.append(' ');
+        }
+        return history.toString();
+    }
+
+    private static void turn(Cube cube, Move move) {
+        switch (move.letter) {
+            case 'U': cube.Up(move.turn()); break;
+            case 'L': cube.Left(move.turn()); break;
+            case 'F': cube.Front(move.turn()); break;
+            case 'R': cube.Right(move.turn()); break;
+            case 'B': cube.Back(move.turn()); break;
+            default: cube.Down(move.turn()); break;
+        }
+    }
+
+    byte[] chunk(SplittableRandom random, int count) {
+        //count scrambles, one to a line
+        byte[] bytes = new byte[count * Math.max(1, length * MAX_BYTES_PER_MOVE)];
+        int[] moves = new int[length];
+        int position = 0;
+        for (int s = 0; s < count; s++) {
+            next(random, moves, length);
+            for (int i = 0; i < length; i++) {
+                if (i > 0) bytes[position++] = ' ';
+                byte[] token = TOKENS[moves[i]];
+                for (byte b : token) {
+                    bytes[position++] = b;
+                }
+            }
+            bytes[position++] = '\n';
+        }
+        return position == bytes.length ? bytes : Arrays.copyOf(bytes, position);
+    }
+
+    public void write(OutputStream out, long count, int threads) throws IOException, InterruptedException {
+        SplittableRandom root = new SplittableRandom(seed);
+        //a slow output stream holds the workers back instead of letting finished chunks pile up in memory
+        try (OrderedPipeline<byte[]> pipeline = new OrderedPipeline<>(threads, "could not generate scrambles", out::write)) {
+            for (long done = 0; done < count; done += CHUNK) {
+                int size = (int) Math.min(CHUNK, count - done);
+                SplittableRandom random = root.split();
+                pipeline.submit(() -> chunk(random, size));
+            }
+            pipeline.finish();
+        }
+        out.flush();
+    }
+}
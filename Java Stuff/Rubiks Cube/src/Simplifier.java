@@ -0,0 +1,252 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class Simplifier {
+    /**
+     * Rewrites an algorithm for a cube of size n as a shorter one that leaves the cube in exactly the same state.
+     *
+     * Every move turns some layers about one of the three axes, and moves about the same axis commute, so each run of
+     * moves about one axis is added up into how far each layer turns (U D U' is just D, and R L R' L' is nothing), and
+     * then written back out as the fewest moves it can find: runs of neighbouring layers turning the same amount become
+     * one face, wide, slice or numbered layer move, and if most layers turn the same amount that part is taken out as a
+     * whole cube rotation.
+     *
+     * Rotations (x, y and z, and anything else that turns every layer) are moved to the end, with the moves after them
+     * rewritten to turn whichever face was really there, so the moves on either side of a rotation can cancel too. The
+     * end result is the simplified moves followed by at most two rotations.
+     */
+    //the face each axis is counted from, the same face the rotation about it turns like (y, x and z)
+    static final int[] REFERENCE_FACE = {0, 3, 2};
+    static final int[] AXIS_OF_FACE = {0, 1, 2, 1, 2, 0};
+    static final char[] ROTATION_OF_AXIS = {'y', 'x', 'z'};
+    //the shortest rotations for each way of holding the cube, by its centres
+    private static final List<byte[]> HOLDINGS = new ArrayList<>();
+    private static final List<Move[]> HOLDING_ROTATIONS = new ArrayList<>();
+    //a holding is known from just what is at U and F, so HOLDING_BY_KEY[6 * U + F] is its place in HOLDINGS
+    private static final int[] HOLDING_BY_KEY = new int[36];
+
+    static {
+        Arrays.fill(HOLDING_BY_KEY, -1);
+        HOLDINGS.add(new byte[]{0, 1, 2, 3, 4, 5});
+        HOLDING_ROTATIONS.add(new Move[0]);
+        HOLDING_BY_KEY[2] = 0;
+        for (int i = 0; i < HOLDINGS.size(); i++) {
+            for (char letter : ROTATION_OF_AXIS) {
+                for (int turns = 1; turns <= 3; turns++) {
+                    Move rotation = new Move(letter, turns);
+                    byte[] held = rotate(HOLDINGS.get(i), rotation.index());
+                    if (holdingIndex(held) >= 0) continue;
+                    Move[] moves = Arrays.copyOf(HOLDING_ROTATIONS.get(i), HOLDING_ROTATIONS.get(i).length + 1);
+                    moves[moves.length - 1] = rotation;
+                    HOLDING_BY_KEY[6 * held[0] + held[2]] = HOLDINGS.size();
+                    HOLDINGS.add(held);
+                    HOLDING_ROTATIONS.add(moves);
+                }
+            }
+        }
+    }
+
+    final int n;
+    private final List<Move> out = new ArrayList<>();
+    //held[face] is the face that started out where that face is now, with the rotations taken out so far
+    private byte[] held = {0, 1, 2, 3, 4, 5};
+    //how far each layer of the current axis turns, counted from its reference face
+    private final int[] layers;
+    private int axis = -1;
+    private int axisMoves;
+
+    private Simplifier(int n) {
+        this.n = n;
+        layers = new int[n];
+    }
+
+    public static String simplify(String input, int n) throws IllegalArgumentException {
+        StringBuilder builder = new StringBuilder();
+        for (Move move : simplify(Move.parseAll(input), n)) {
+            if (builder.length() > 0) builder.append(' ');
+            builder.append(move);
+        }
+        return builder.toString();
+    }
+
+    public static Move[] simplify(Move[] moves, int n) throws IllegalArgumentException {
+        if (n < 1) throw new IllegalArgumentException("the cube has to be at least 1x1");
+        Simplifier simplifier = new Simplifier(n);
+        for (Move move : moves) {
+            simplifier.add(move);
+        }
+        simplifier.flush();
+        simplifier.out.addAll(Arrays.asList(HOLDING_ROTATIONS.get(holdingIndex(simplifier.held))));
+        return simplifier.out.toArray(new Move[0]);
+    }
+
+    private static byte[] rotate(byte[] held, int m) {
+        //the same as CubieCube turning its centres, so doing a rotation after the ones already taken out
+        byte[] rotated = new byte[6];
+        for (int face = 0; face < 6; face++) {
+            rotated[face] = held[CubieCube.CENTRE_MOVE[m][face]];
+        }
+        return rotated;
+    }
+
+    private static int holdingIndex(byte[] held) {
+        return HOLDING_BY_KEY[6 * held[0] + held[2]];
+    }
+
+    private void add(Move move) {
+        //a move on the face that is now where face was is the same as a move on face before the rotations
+        int face = held[move.face()];
+        int from = move.from(n), to = move.to(n);
+        if (from == 0 && to == n - 1) {
+            //a rotation, taken out and done at the end instead
+            addRotation(face, move.turns);
+            return;
+        }
+        if (AXIS_OF_FACE[face] != axis) {
+            //flushing can take out a rotation, which changes which face this move is really on
+            flush();
+            face = held[move.face()];
+            axis = AXIS_OF_FACE[face];
+        }
+        axisMoves++;
+        boolean reference = face == REFERENCE_FACE[axis];
+        for (int layer = from; layer <= to; layer++) {
+            int i = reference ? layer : n - 1 - layer;
+            layers[i] = (layers[i] + (reference ? move.turns : 4 - move.turns)) % 4;
+        }
+    }
+
+    private void addRotation(int face, int turns) {
+        held = rotated(face, turns);
+    }
+
+    private byte[] rotated(int face, int turns) {
+        //the rotation is about a face from before the other rotations, so it goes in front of them
+        int rotationAxis = AXIS_OF_FACE[face];
+        if (face != REFERENCE_FACE[rotationAxis]) turns = 4 - turns;
+        int m = Move.LETTERS.indexOf(ROTATION_OF_AXIS[rotationAxis]) * 3 + turns - 1;
+        byte[] rotated = new byte[6];
+        for (int f = 0; f < 6; f++) {
+            rotated[f] = CubieCube.CENTRE_MOVE[m][held[f]];
+        }
+        return rotated;
+    }
+
+    private List<int[]> intervals(int rotation) {
+        //the fewest {first layer, last layer, amount} turns that give every layer its amount, once rotation is taken
+        //off all of them. A turn of layers a to b adds its amount to the difference between layer a and the one
+        //before, and takes it off the difference after b, so it's the same as joining up those two differences. The
+        //differences that aren't 0 have to be split into as many groups adding up to 0 as they can, each group taking
+        //one turn fewer than it has differences
+        int[] differences = new int[n + 1];
+        //where the differences that aren't 0 are, in order
+        int[] nodes = new int[n + 1];
+        int count = 0;
+        for (int i = 0, previous = 0; i <= n; i++) {
+            int amount = i < n ? (layers[i] - rotation + 4) & 3 : 0;
+            differences[i] = (amount - previous + 4) & 3;
+            if (differences[i] != 0) nodes[count++] = i;
+            previous = amount;
+        }
+        List<int[]> intervals = new ArrayList<>();
+        //pairs first, the closest together first so neighbouring layers come out as one move
+        while (true) {
+            int a = -1, b = -1;
+            for (int i = 0; i < count; i++) {
+                int from = nodes[i];
+                if (differences[from] == 0) continue;
+                for (int j = i + 1; j < count && (a < 0 || nodes[j] - from < b - a); j++) {
+                    int to = nodes[j];
+                    if (differences[to] != 0 && ((differences[from] + differences[to]) & 3) == 0) {
+                        a = from;
+                        b = to;
+                        break;
+                    }
+                }
+            }
+            if (a < 0) break;
+            intervals.add(new int[]{a, b - 1, differences[a]});
+            differences[a] = differences[b] = 0;
+        }
+        //what's left is all 1s or all 3s and at most one 2, so the 2 goes with two of the others and the rest in fours
+        int[] group = new int[4];
+        int size = 0, two = -1;
+        for (int k = 0; k < count; k++) {
+            if (differences[nodes[k]] == 2) two = nodes[k];
+        }
+        for (int k = 0; k < count; k++) {
+            int i = nodes[k];
+            if (differences[i] == 0 || differences[i] == 2) continue;
+            group[size++] = i;
+            if (two >= 0 && size == 2) {
+                group[size++] = two;
+                two = -2;
+            } else if (size < 4) {
+                continue;
+            }
+            Arrays.sort(group, 0, size);
+            //joined up one after the other, each turn carrying what the differences so far add up to
+            for (int g = 0, sum = 0; g + 1 < size; g++) {
+                sum = (sum + differences[group[g]]) & 3;
+                intervals.add(new int[]{group[g], group[g + 1] - 1, sum});
+            }
+            size = 0;
+        }
+        intervals.sort((x, y) -> x[0] - y[0]);
+        return intervals;
+    }
+
+    private void flush() {
+        //writes out the moves for the layers turned about the current axis, then starts afresh
+        if (axis < 0) return;
+        int reference = REFERENCE_FACE[axis];
+        int rotation = 0;
+        List<int[]> best = intervals(0);
+        int bestCost = best.size() + HOLDING_ROTATIONS.get(holdingIndex(held)).length;
+        //a move on its own is already as short as it gets
+        for (int offset = 1; offset < 4 && axisMoves > 1; offset++) {
+            //taking a rotation out costs however many more rotations that leaves at the end, which can be none if it
+            //undoes one from before
+            List<int[]> intervals = intervals(offset);
+            int cost = intervals.size() + HOLDING_ROTATIONS.get(holdingIndex(rotated(reference, offset))).length;
+            if (cost < bestCost) {
+                best = intervals;
+                bestCost = cost;
+                rotation = offset;
+            }
+        }
+        for (int[] interval : best) {
+            //a turn of every layer is a rotation too
+            if (interval[0] == 0 && interval[1] == n - 1) {
+                addRotation(reference, interval[2]);
+            } else {
+                out.add(layerMove(interval[0], interval[1], interval[2]));
+            }
+        }
+        Arrays.fill(layers, 0);
+        axis = -1;
+        axisMoves = 0;
+        if (rotation != 0) addRotation(reference, rotation);
+    }
+
+    private Move layerMove(int start, int end, int amount) {
+        //layers start to end counted from the reference face, turning amount as seen from there
+        int reference = REFERENCE_FACE[axis], opposite = StickerMap.OPPOSITE[reference];
+        if (n == 3 && start == 1 && end == 1) {
+            //M turns like L, E like D and S like F
+            char slice = "EMS".charAt(axis);
+            Move sliceMove = new Move(slice, 1);
+            return new Move(slice, sliceMove.face() == reference ? amount : 4 - amount);
+        }
+        //from whichever face the layers are nearer to
+        boolean fromReference = start <= n - 1 - end;
+        int face = fromReference ? reference : opposite;
+        int first = fromReference ? start : n - 1 - end, last = fromReference ? end : n - 1 - start;
+        int turns = fromReference ? amount : 4 - amount;
+        char letter = Move.FACES.charAt(face);
+        if (first == 0 && last == 0) return new Move(letter, turns);
+        if (first == 0 && last == 1) return new Move(Move.WIDE_FACES.charAt(face), turns);
+        return new Move(letter, turns, first, last);
+    }
+}
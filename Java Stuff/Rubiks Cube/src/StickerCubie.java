@@ -0,0 +1,76 @@
+import javafx.scene.Group;
+import javafx.scene.paint.PhongMaterial;
+import javafx.scene.shape.Box;
+import javafx.scene.shape.CullFace;
+import javafx.scene.shape.MeshView;
+import javafx.scene.shape.TriangleMesh;
+
+import java.util.EnumMap;
+
+public class StickerCubie extends Cubie {
+    /**
+     * A cubie drawn as a plain black box with one flat square in front of each face that can be seen. Every cubie
+     * shares the same 6 square meshes (one per face) and the same 7 materials (one per colour), so changing a
+     * sticker's colour is just pointing it at a different material, with no images drawn or sent to the GPU.
+     */
+    private static final double PAD = 4;
+    //how far the stickers sit out from the box so they don't fight with its faces for depth
+    private static final double LIFT = 0.5;
+    private static final EnumMap<Cube.Colour, PhongMaterial> MATERIALS = new EnumMap<>(Cube.Colour.class);
+    private static final TriangleMesh[] QUADS = new TriangleMesh[6];
+
+    static {
+        for (Cube.Colour colour : Cube.Colour.values()) {
+            MATERIALS.put(colour, new PhongMaterial(Net.getColour(colour)));
+        }
+        for (int face = 0; face < 6; face++) {
+            QUADS[face] = quad(face);
+        }
+    }
+
+    private final MeshView[] stickers = new MeshView[6];
+
+    public StickerCubie(int x, int y, int z, Group group, int n, Cube cube) {
+        super(x, y, z, n, cube);
+        Group parts = new Group();
+        Box body = new Box(BOX_SIZE, BOX_SIZE, BOX_SIZE);
+        body.setMaterial(MATERIALS.get(Cube.Colour.BLACK));
+        parts.getChildren().add(body);
+        for (int face = 0; face < 6; face++) {
+            if (!isFaceVisible(face)) continue;
+            stickers[face] = new MeshView(QUADS[face]);
+            //a square has no inside to hide, and this way it doesn't matter which way round its corners go
+            stickers[face].setCullFace(CullFace.NONE);
+            parts.getChildren().add(stickers[face]);
+        }
+        place(parts, group);
+    }
+
+    private static TriangleMesh quad(int face) {
+        int[] normal = StickerMap.NORMALS[face];
+        //the two axes the square lies along are whichever ones the normal doesn't point down
+        int axis = normal[0] != 0 ? 0 : normal[1] != 0 ? 1 : 2;
+        int u = (axis + 1) % 3, v = (axis + 2) % 3;
+        double half = BOX_SIZE / 2 - PAD;
+        double[][] corners = {{-half, -half}, {half, -half}, {half, half}, {-half, half}};
+        TriangleMesh mesh = new TriangleMesh();
+        for (double[] corner : corners) {
+            float[] point = new float[3];
+            point[axis] = (float) (normal[axis] * (BOX_SIZE / 2 + LIFT));
+            point[u] = (float) corner[0];
+            point[v] = (float) corner[1];
+            mesh.getPoints().addAll(point);
+        }
+        mesh.getTexCoords().addAll(0, 0);
+        mesh.getFaces().addAll(0,0, 1,0, 2,0, 0,0, 2,0, 3,0);
+        return mesh;
+    }
+
+    public void updateColours() {
+        for (int face = 0; face < 6; face++) {
+            if (stickers[face] == null) continue;
+            PhongMaterial material = MATERIALS.get(cube.getFaceColour(x, y, z, face));
+            if (stickers[face].getMaterial() != material) stickers[face].setMaterial(material);
+        }
+    }
+}
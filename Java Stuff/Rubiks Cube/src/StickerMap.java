@@ -0,0 +1,108 @@
+public class StickerMap {
+    /**
+     * Maps sticker indices (face*n*n + row*n + col, the layout used by PackedCube) to where the sticker sits in space,
+     * using the same x,y,z cubie coordinates as Cubie and getFaceColour: x goes left to right, y goes top to bottom and
+     * z goes front to back. Each sticker is also given an outward normal pointing away from the face it is on.
+     */
+    static final int[][] NORMALS = {{0,-1,0},{-1,0,0},{0,0,-1},{1,0,0},{0,0,1},{0,1,0}};
+    static final int[] OPPOSITE = {5,3,4,1,2,0};
+
+    int n;
+    int faceSize;
+    int size;
+    int[] xs, ys, zs;
+
+    public StickerMap(int n) {
+        this.n = n;
+        faceSize = n * n;
+        size = 6 * faceSize;
+        xs = new int[size];
+        ys = new int[size];
+        zs = new int[size];
+        for (int face = 0; face < 6; face++) {
+            for (int row = 0; row < n; row++) {
+                for (int col = 0; col < n; col++) {
+                    int i = index(face, row, col);
+                    switch (face) {
+                        case 0: xs[i] = col; ys[i] = 0; zs[i] = n - row - 1; break;
+                        case 1: xs[i] = 0; ys[i] = row; zs[i] = n - col - 1; break;
+                        case 2: xs[i] = col; ys[i] = row; zs[i] = 0; break;
+                        case 3: xs[i] = n - 1; ys[i] = row; zs[i] = col; break;
+                        case 4: xs[i] = n - col - 1; ys[i] = row; zs[i] = n - 1; break;
+                        case 5: xs[i] = col; ys[i] = n - 1; zs[i] = row; break;
+                    }
+                }
+            }
+        }
+    }
+
+    public int index(int face, int row, int col) {
+        return face * faceSize + row * n + col;
+    }
+
+    public int stickerAt(int x, int y, int z, int face) {
+        switch (face) {
+            case 0: return index(face, n - z - 1, x);
+            case 1: return index(face, y, n - z - 1);
+            case 2: return index(face, y, x);
+            case 3: return index(face, y, z);
+            case 4: return index(face, y, n - x - 1);
+            case 5: return index(face, z, x);
+            default: return -1;
+        }
+    }
+
+    public int face(int sticker) {
+        return sticker / faceSize;
+    }
+
+    public int depth(int sticker, int face) {
+        //how many layers in from the given face this sticker is, 0 being the face itself
+        switch (face) {
+            case 0: return ys[sticker];
+            case 1: return xs[sticker];
+            case 2: return zs[sticker];
+            case 3: return n - 1 - xs[sticker];
+            case 4: return n - 1 - zs[sticker];
+            default: return n - 1 - ys[sticker];
+        }
+    }
+
+    public static int faceOf(int[] normal) {
+        for (int face = 0; face < 6; face++) {
+            if (NORMALS[face][0] == normal[0] && NORMALS[face][1] == normal[1] && NORMALS[face][2] == normal[2]) return face;
+        }
+        throw new IllegalArgumentException("not a face normal");
+    }
+
+    public int transform(int sticker, int[][] matrix) {
+        //coordinates are doubled and centred so that the middle of the cube is the origin, this keeps them integers
+        int[] position = {2 * xs[sticker] - (n - 1), 2 * ys[sticker] - (n - 1), 2 * zs[sticker] - (n - 1)};
+        int[] newPosition = multiply(matrix, position);
+        int[] newNormal = multiply(matrix, NORMALS[face(sticker)]);
+        return stickerAt((newPosition[0] + n - 1) / 2, (newPosition[1] + n - 1) / 2, (newPosition[2] + n - 1) / 2, faceOf(newNormal));
+    }
+
+    static int[] multiply(int[][] matrix, int[] v) {
+        int[] result = new int[3];
+        for (int i = 0; i < 3; i++) {
+            result[i] = matrix[i][0] * v[0] + matrix[i][1] * v[1] + matrix[i][2] * v[2];
+        }
+        return result;
+    }
+
+    static int[][] clockwise(int face) {
+        //quarter turn clockwise when looking at the face from outside the cube (v -> v x normal + normal(normal.v))
+        int[] a = NORMALS[face];
+        int[][] matrix = new int[3][3];
+        for (int j = 0; j < 3; j++) {
+            int[] v = new int[3];
+            v[j] = 1;
+            int dot = a[0] * v[0] + a[1] * v[1] + a[2] * v[2];
+            matrix[0][j] = v[1] * a[2] - v[2] * a[1] + a[0] * dot;
+            matrix[1][j] = v[2] * a[0] - v[0] * a[2] + a[1] * dot;
+            matrix[2][j] = v[0] * a[1] - v[1] * a[0] + a[2] * dot;
+        }
+        return matrix;
+    }
+}
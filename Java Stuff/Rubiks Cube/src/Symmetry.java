@@ -0,0 +1,143 @@
+import java.util.concurrent.ConcurrentHashMap;
+
+public class Symmetry {
+    /**
+     * The 48 symmetries of the cube (the 24 ways of holding it, which are what x, y and z reach, and their 24 mirror
+     * images) as sticker permutations for a cube of size n, worked out once and shared like MoveTable.
+     *
+     * Applying symmetry s to a state moves every sticker to where s sends it and then recolours it as the face s
+     * sends its old face to, which is the same as doing the state's moves mirrored or rotated by s (conjugation). A
+     * solved cube stays solved under all of them, and two states that are symmetric versions of each other need the
+     * same number of moves to solve, so caches and search tables only have to keep one state from each group.
+     * canonical() picks the one whose stickers (as PackedCube bytes) come first.
+     *
+     * Symmetries 0 to 23 are the rotations, with 0 being the identity, and 24 to 47 are the mirror images.
+     */
+    static final int COUNT = 48;
+    static final int ROTATIONS = 24;
+    //the same matrix for every size, matrices[s] is a signed permutation matrix
+    static final int[][][] MATRICES = new int[COUNT][][];
+    static final int[] INVERSE = new int[COUNT];
+    //recolour[s][colour], where colours are PackedCube colour indices, which match the face each colour starts on
+    static final byte[][] RECOLOUR = new byte[COUNT][6];
+    private static final ConcurrentHashMap<Integer, Symmetry> tables = new ConcurrentHashMap<>();
+
+    static {
+        int[][] orders = {{0, 1, 2}, {0, 2, 1}, {1, 0, 2}, {1, 2, 0}, {2, 0, 1}, {2, 1, 0}};
+        int rotations = 0, mirrors = ROTATIONS;
+        for (int[] order : orders) {
+            for (int signs = 0; signs < 8; signs++) {
+                int[][] matrix = new int[3][3];
+                for (int row = 0; row < 3; row++) {
+                    matrix[row][order[row]] = (signs >> row & 1) == 0 ? 1 : -1;
+                }
+                //the identity comes first because it is the first order with no signs flipped
+                MATRICES[determinant(matrix) > 0 ? rotations++ : mirrors++] = matrix;
+            }
+        }
+        for (int s = 0; s < COUNT; s++) {
+            for (int t = 0; t < COUNT; t++) {
+                if (isTranspose(MATRICES[s], MATRICES[t])) INVERSE[s] = t;
+            }
+            for (int face = 0; face < 6; face++) {
+                RECOLOUR[s][face] = (byte) StickerMap.faceOf(StickerMap.multiply(MATRICES[s], StickerMap.NORMALS[face]));
+            }
+        }
+    }
+
+    final int n;
+    final StickerMap map;
+    //permutations[s][sticker] is where symmetry s puts that sticker, and sources[s] is the other way round
+    final int[][] permutations;
+    final int[][] sources;
+
+    private Symmetry(int n) {
+        this.n = n;
+        map = MoveTable.forSize(n).map;
+        permutations = new int[COUNT][map.size];
+        sources = new int[COUNT][map.size];
+        for (int s = 0; s < COUNT; s++) {
+            for (int sticker = 0; sticker < map.size; sticker++) {
+                int target = map.transform(sticker, MATRICES[s]);
+                permutations[s][sticker] = target;
+                sources[s][target] = sticker;
+            }
+        }
+    }
+
+    public static Symmetry forSize(int n) {
+        return tables.computeIfAbsent(n, Symmetry::new);
+    }
+
+    private static int determinant(int[][] m) {
+        return m[0][0] * (m[1][1] * m[2][2] - m[1][2] * m[2][1])
+                - m[0][1] * (m[1][0] * m[2][2] - m[1][2] * m[2][0])
+                + m[0][2] * (m[1][0] * m[2][1] - m[1][1] * m[2][0]);
+    }
+
+    private static boolean isTranspose(int[][] a, int[][] b) {
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                if (a[i][j] != b[j][i]) return false;
+            }
+        }
+        return true;
+    }
+
+    public static boolean isMirror(int symmetry) {
+        return symmetry >= ROTATIONS;
+    }
+
+    public static Move apply(int symmetry, Move move) {
+        //the move that does to a symmetric state what move does to the original. Mirrors turn the other way round
+        int face = RECOLOUR[symmetry][move.face()];
+        int turns = isMirror(symmetry) ? 4 - move.turns : move.turns;
+        if (Move.FACES.indexOf(move.letter) >= 0) return new Move(Move.FACES.charAt(face), turns, move.first, move.last);
+        if (Move.WIDE_FACES.indexOf(move.letter) >= 0) return new Move(Move.WIDE_FACES.charAt(face), turns);
+        //slices and rotations turn the same way as one face (M like L, x like R and so on), so they become whichever
+        //of their own kind turns like the new face, or like its opposite and the other way round
+        String letters = "MES".indexOf(move.letter) >= 0 ? "MES" : "xyz";
+        for (int i = 0; i < 3; i++) {
+            int letterFace = new Move(letters.charAt(i), 1).face();
+            if (letterFace == face) return new Move(letters.charAt(i), turns);
+            if (letterFace == StickerMap.OPPOSITE[face]) return new Move(letters.charAt(i), 4 - turns);
+        }
+        throw new IllegalStateException("no move turns like face " + face);
+    }
+
+    public byte[] apply(int symmetry, byte[] stickers, byte[] out) {
+        //stickers and out are PackedCube sticker arrays, and have to be different arrays
+        int[] permutation = permutations[symmetry];
+        byte[] recolour = RECOLOUR[symmetry];
+        for (int i = 0; i < map.size; i++) {
+            out[permutation[i]] = recolour[stickers[i]];
+        }
+        return out;
+    }
+
+    public int canonical(byte[] stickers, byte[] out) {
+        //writes the first of the 48 symmetric versions of stickers into out, and returns the symmetry that makes it.
+        //Each symmetry is only compared sticker by sticker until it loses, so most are dropped after a few lookups
+        int best = 0;
+        for (int s = 1; s < COUNT; s++) {
+            if (compare(s, best, stickers) < 0) best = s;
+        }
+        apply(best, stickers, out);
+        return best;
+    }
+
+    private int compare(int a, int b, byte[] stickers) {
+        int[] sourcesA = sources[a], sourcesB = sources[b];
+        byte[] recolourA = RECOLOUR[a], recolourB = RECOLOUR[b];
+        for (int i = 0; i < map.size; i++) {
+            int difference = recolourA[stickers[sourcesA[i]]] - recolourB[stickers[sourcesB[i]]];
+            if (difference != 0) return difference;
+        }
+        return 0;
+    }
+
+    public int canonical(PackedCube cube, byte[] out) {
+        if (cube.n != n) throw new IllegalArgumentException("this is the symmetry table for a " + n + "x" + n);
+        return canonical(cube.stickers, out);
+    }
+}
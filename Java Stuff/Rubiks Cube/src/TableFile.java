@@ -0,0 +1,68 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.function.Supplier;
+
+public class TableFile {
+    /**
+     * The file handling shared by the solvers' tables (TwoPhaseTables, OptimalTables and PocketSolver). A table file
+     * starts with a magic number and a version, followed by the tables themselves, all little endian.
+     *
+     * load() memory maps the file if it is there with the right size, magic number and version, and otherwise builds
+     * the tables and saves them for next time. Saving writes to a temporary file in the same directory and moves it
+     * into place in one go, so a half written table is never read, and the temporary file is deleted if anything goes
+     * wrong. Failing to read or save only costs rebuilding the tables, so it is reported rather than thrown.
+     */
+    private TableFile() {
+    }
+
+    static ByteBuffer load(Path file, int size, int magic, int version, String description, Supplier<ByteBuffer> generate) {
+        try {
+            if (Files.isRegularFile(file) && Files.size(file) == size) {
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+                    if (mapped.getInt(0) == magic && mapped.getInt(4) == version) return mapped;
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Could not read " + description + " from " + file + ", rebuilding them: " + e);
+        }
+        ByteBuffer buffer = generate.get();
+        save(file, buffer, description);
+        return buffer;
+    }
+
+    static void save(Path file, ByteBuffer buffer, String description) {
+        Path directory = file.toAbsolutePath().getParent();
+        Path temp = null;
+        try {
+            Files.createDirectories(directory);
+            temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer toWrite = buffer.duplicate();
+                toWrite.clear();
+                while (toWrite.hasRemaining()) channel.write(toWrite);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.out.println("Could not save " + description + " to " + file + ": " + e);
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                    //nothing more to be done about it, and it is only a file in the tables' directory
+                }
+            }
+        }
+    }
+
+    static ByteBuffer section(ByteBuffer buffer, int position, int length) {
+        //the part of buffer from position, as a buffer of its own starting at 0
+        ByteBuffer copy = buffer.duplicate();
+        copy.position(position);
+        copy.limit(position + length);
+        return copy.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
@@ -0,0 +1,68 @@
+import javafx.scene.Group;
+import javafx.scene.image.Image;
+import javafx.scene.paint.PhongMaterial;
+import javafx.scene.shape.CullFace;
+import org.fxyz3d.shapes.primitives.CuboidMesh;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class TexturedCubie extends Cubie {
+    /**
+     * A cubie drawn as a CuboidMesh with a net of its six colours as the texture.
+     *
+     * Materials are shared between every cubie with the same six colours, since drawing a net to an image is slow
+     * and there are only ever a few hundred different ones in use. They are kept in a bounded cache keyed on the six
+     * colours written as a number in base 7 (one digit per face), and a cubie whose colours didn't change keeps the
+     * material it has.
+     */
+    static final int MATERIAL_CACHE_SIZE = 1024;
+    private static final Map<Integer, PhongMaterial> materials = new LinkedHashMap<Integer, PhongMaterial>(MATERIAL_CACHE_SIZE, 0.75f, true) {
+        protected boolean removeEldestEntry(Map.Entry<Integer, PhongMaterial> eldest) {
+            return size() > MATERIAL_CACHE_SIZE;
+        }
+    };
+
+    CuboidMesh cuboid;
+    private final Cube.Colour[] colours = new Cube.Colour[6];
+    private int materialKey = -1;
+
+    public TexturedCubie(int x, int y, int z, Group group, int n, Cube cube) {
+        super(x, y, z, n, cube);
+        //this line makes noise in the console I guess
+        cuboid = new CuboidMesh(BOX_SIZE,BOX_SIZE,BOX_SIZE);
+        cuboid.setCullFace(CullFace.BACK);
+        place(cuboid, group);
+    }
+
+    public void updateColours() {
+        int key = 0;
+        for (int i = 0; i < 6; i ++) {
+            if (isFaceVisible(i)) {
+                colours[i] = cube.getFaceColour(x, y, z, i);
+            } else {
+                colours[i] = Cube.Colour.BLACK;
+            }
+            key = key * 7 + colours[i].ordinal();
+        }
+        if (key == materialKey) return;
+        materialKey = key;
+        cuboid.setMaterial(material(key, colours));
+    }
+
+    private static PhongMaterial material(int key, Cube.Colour[] colours) {
+        //only ever used from the JavaFX thread, like everything else that draws
+        PhongMaterial mat = materials.get(key);
+        if (mat == null) {
+            long startTime = Metrics.start(Metrics.Operation.TEXTURE);
+            CubeEvents.TextureEvent event = CubeEvents.beginTexture();
+            Image newMeshImage = Net.makeNet(colours,BOX_SIZE);
+            mat = new PhongMaterial();
+            mat.setDiffuseMap(newMeshImage);
+            materials.put(key, mat);
+            Metrics.record(Metrics.Operation.TEXTURE, startTime);
+            CubeEvents.commitTexture(event, key);
+        }
+        return mat;
+    }
+}
@@ -0,0 +1,170 @@
+public class TwoPhaseSolver {
+    /**
+     * Kociemba's two phase algorithm for the 3x3. Phase 1 searches with iterative deepening for move sequences that
+     * bring the cube into the group generated by U, D, R2, L2, F2 and B2, and for each one found phase 2 tries to finish
+     * the solve with those moves inside whatever length is left. The first solution found within maxLength is returned.
+     *
+     * A solver keeps its own search state, so use one per thread. The tables are shared.
+     */
+    //21 is always possible but now and then takes seconds to find, 22 comes back in around 10ms on average
+    static final int DEFAULT_MAX_LENGTH = 22;
+    static final long DEFAULT_TIMEOUT = 5000;
+    //phase 2 searches longer than this almost never pay off, it is quicker to carry on with a longer phase 1
+    static final int MAX_PHASE_2_LENGTH = 12;
+
+    TwoPhaseTables tables;
+    private final int[] moves = new int[40];
+    private CubieCube start;
+    private final CubieCube phase2Cube = new CubieCube();
+    private int maxLength;
+    private int solutionLength;
+    private long deadline;
+
+    public TwoPhaseSolver() {
+        this(TwoPhaseTables.get());
+    }
+
+    public TwoPhaseSolver(TwoPhaseTables tables) {
+        this.tables = tables;
+    }
+
+    public static void main(String[] args) {
+        long startTime = System.currentTimeMillis();
+        TwoPhaseSolver solver = new TwoPhaseSolver();
+        System.out.println("Tables ready in " + (System.currentTimeMillis() - startTime) + "ms");
+        Cube cube = new PackedCube(3);
+        System.out.println(cube.shuffle(false, 30));
+        startTime = System.nanoTime();
+        String solution = solver.solve(cube);
+        System.out.println(solution + " (" + (System.nanoTime() - startTime) / 1000 + "us)");
+        cube.doAlgorithm(solution);
+        System.out.println(cube);
+    }
+
+    public String solve(Cube cube) throws IllegalArgumentException {
+        return solve(cube, DEFAULT_MAX_LENGTH, DEFAULT_TIMEOUT);
+    }
+
+    public String solve(Cube cube, int maxLength, long timeoutMillis) throws IllegalArgumentException {
+        return solve(readCube(cube), maxLength, timeoutMillis);
+    }
+
+    public String solve(CubieCube cube, int maxLength, long timeoutMillis) throws IllegalArgumentException {
+        if (!cube.isSolvable()) throw new IllegalArgumentException("this cube can't be solved, a piece has been twisted, flipped or swapped");
+        start = cube;
+        this.maxLength = maxLength;
+        deadline = System.currentTimeMillis() + timeoutMillis;
+        solutionLength = -1;
+        int twist = cube.getTwist(), flip = cube.getFlip(), slice = TwoPhaseTables.getSlice(cube);
+        for (int depth = phase1Prune(twist, flip, slice); depth <= maxLength; depth++) {
+            if (phase1(twist, flip, slice, 0, depth, -1)) break;
+            if (System.currentTimeMillis() > deadline) break;
+        }
+        if (solutionLength < 0) throw new IllegalStateException("no solution of " + maxLength + " moves or less was found in " + timeoutMillis + "ms");
+        StringBuilder solution = new StringBuilder();
+        for (int i = 0; i < solutionLength; i++) {
+            if (i > 0) solution.append(' ');
+            solution.append(Move.fromIndex(moves[i]));
+        }
+        return solution.toString();
+    }
+
+    static CubieCube readCube(Cube cube) throws IllegalArgumentException {
+        //the solution is given relative to how the cube is held right now, so colours are matched to whichever face
+        //their centre is currently on rather than where they started
+        StickerMap map = MoveTable.forSize(3).map;
+        byte[] stickers = new byte[54];
+        byte[] faceOfColour = new byte[6];
+        for (int i = 0; i < 54; i++) {
+            Cube.Colour colour = cube.getFaceColour(map.xs[i], map.ys[i], map.zs[i], map.face(i));
+            for (byte c = 0; c < 6; c++) {
+                if (PackedCube.COLOURS[c] == colour) stickers[i] = c;
+            }
+        }
+        for (byte face = 0; face < 6; face++) {
+            faceOfColour[stickers[CubieCube.CENTRE_FACELETS[face]]] = face;
+        }
+        for (int i = 0; i < 54; i++) {
+            stickers[i] = faceOfColour[stickers[i]];
+        }
+        return CubieCube.fromStickers(stickers);
+    }
+
+    private int phase1Prune(int twist, int flip, int slice) {
+        return Math.max(tables.sliceTwistPrune.get(slice * TwoPhaseTables.N_TWIST + twist), tables.sliceFlipPrune.get(slice * TwoPhaseTables.N_FLIP + flip));
+    }
+
+    private int phase2Prune(int corners, int udEdges, int slicePerm) {
+        return Math.max(tables.sliceCornerPrune.get(slicePerm * TwoPhaseTables.N_PERM_8 + corners), tables.sliceUdEdgePrune.get(slicePerm * TwoPhaseTables.N_PERM_8 + udEdges));
+    }
+
+    private static boolean skip(int face, int lastFace) {
+        //never turn the same face twice in a row, and only turn opposite faces in one order (U before D, L before R, F before B)
+        return face == lastFace || (lastFace >= 0 && StickerMap.OPPOSITE[face] == lastFace && face < lastFace);
+    }
+
+    private boolean phase1(int twist, int flip, int slice, int depth, int togo, int lastFace) {
+        if (togo == 0) {
+            //a phase 1 solution ending in a phase 2 move was already tried as a shorter one
+            if (depth > 0 && isPhase2Move(moves[depth - 1])) return false;
+            return phase2Start(depth);
+        }
+        for (int m = 0; m < TwoPhaseTables.N_MOVES; m++) {
+            int face = m / 3;
+            if (skip(face, lastFace)) continue;
+            int newSlice = tables.sliceMove.get(slice * TwoPhaseTables.N_MOVES + m);
+            int newTwist = tables.twistMove.get(twist * TwoPhaseTables.N_MOVES + m);
+            if (tables.sliceTwistPrune.get(newSlice * TwoPhaseTables.N_TWIST + newTwist) >= togo) continue;
+            int newFlip = tables.flipMove.get(flip * TwoPhaseTables.N_MOVES + m);
+            if (tables.sliceFlipPrune.get(newSlice * TwoPhaseTables.N_FLIP + newFlip) >= togo) continue;
+            moves[depth] = m;
+            if (phase1(newTwist, newFlip, newSlice, depth + 1, togo - 1, face)) return true;
+        }
+        return false;
+    }
+
+    private static boolean isPhase2Move(int m) {
+        for (int phase2Move : TwoPhaseTables.PHASE_2_MOVES) {
+            if (phase2Move == m) return true;
+        }
+        return false;
+    }
+
+    private boolean phase2Start(int depth1) {
+        if (System.currentTimeMillis() > deadline) return true;
+        phase2Cube.copyFrom(start);
+        for (int i = 0; i < depth1; i++) {
+            phase2Cube.move(moves[i]);
+        }
+        int corners = phase2Cube.getCornerPermutation();
+        int udEdges = TwoPhaseTables.getUdEdgePermutation(phase2Cube);
+        int slicePerm = TwoPhaseTables.getSlicePermutation(phase2Cube);
+        int lastFace = depth1 > 0 ? moves[depth1 - 1] / 3 : -1;
+        for (int depth2 = phase2Prune(corners, udEdges, slicePerm); depth1 + depth2 <= maxLength && depth2 <= MAX_PHASE_2_LENGTH; depth2++) {
+            if (phase2(corners, udEdges, slicePerm, depth1, depth2, lastFace)) return true;
+        }
+        return false;
+    }
+
+    private boolean phase2(int corners, int udEdges, int slicePerm, int depth, int togo, int lastFace) {
+        if (togo == 0) {
+            if (corners != 0 || udEdges != 0 || slicePerm != 0) return false;
+            solutionLength = depth;
+            return true;
+        }
+        for (int k = 0; k < 10; k++) {
+            int m = TwoPhaseTables.PHASE_2_MOVES[k];
+            int face = m / 3;
+            if (skip(face, lastFace)) continue;
+            //look the corners up first, since about half of all moves get cut off by them alone
+            int newCorners = tables.cornerMove.get(corners * 10 + k);
+            int newSlicePerm = tables.slicePermMove.get(slicePerm * 10 + k);
+            if (tables.sliceCornerPrune.get(newSlicePerm * TwoPhaseTables.N_PERM_8 + newCorners) >= togo) continue;
+            int newUdEdges = tables.udEdgeMove.get(udEdges * 10 + k);
+            if (tables.sliceUdEdgePrune.get(newSlicePerm * TwoPhaseTables.N_PERM_8 + newUdEdges) >= togo) continue;
+            moves[depth] = m;
+            if (phase2(newCorners, newUdEdges, newSlicePerm, depth + 1, togo - 1, face)) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,217 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.IntStream;
+
+public class TwoPhaseTables {
+    /**
+     * Move and pruning tables for TwoPhaseSolver. Building them takes a few seconds, so the first time they are needed
+     * they are written to a file (see TABLE_FILE) and every time after that the file is memory mapped straight in.
+     *
+     * Phase 1 works on corner twist, edge flip and which 4 positions the middle layer edges are in (slice). Phase 2
+     * works in the group generated by U, D, R2, L2, F2 and B2 on the corner permutation, the permutation of the 8 U/D
+     * layer edges and the permutation of the 4 middle layer edges among themselves. Pruning tables hold the number of
+     * moves needed to solve a pair of coordinates as a PruningTable, 4 bits each. Everything is built in parallel.
+     *
+     * The file starts with MAGIC and VERSION, and a file with any other version is rebuilt rather than read, so bump
+     * VERSION whenever the layout changes.
+     */
+    static final int MAGIC = 0x52435450;
+    static final int VERSION = 2;
+    static final Path TABLE_FILE = Paths.get(System.getProperty("rubiks.tables", System.getProperty("user.home") + "/.rubiks-cube/twophase.tables"));
+
+    static final int N_MOVES = 18;
+    static final int N_TWIST = 2187;
+    static final int N_FLIP = 2048;
+    static final int N_SLICE = 495;
+    static final int N_PERM_8 = 40320;
+    static final int N_SLICE_PERM = 24;
+    //the 10 moves that keep a cube inside the phase 2 group, as Move indices: U U2 U' L2 F2 R2 B2 D D2 D'
+    static final int[] PHASE_2_MOVES = {0,1,2,4,7,10,13,15,16,17};
+
+    private static final int[] SLICE_MASKS = new int[N_SLICE];
+    private static TwoPhaseTables instance;
+
+    CharBuffer twistMove, flipMove, sliceMove, cornerMove, udEdgeMove, slicePermMove;
+    PruningTable sliceTwistPrune, sliceFlipPrune, sliceCornerPrune, sliceUdEdgePrune;
+
+    static {
+        for (int mask = 0; mask < 4096; mask++) {
+            if (Integer.bitCount(mask) == 4) SLICE_MASKS[sliceIndex(mask)] = mask;
+        }
+    }
+
+    private TwoPhaseTables(ByteBuffer buffer) {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        int position = 8;
+        twistMove = TableFile.section(buffer, position, 2 * N_TWIST * N_MOVES).asCharBuffer();
+        position += 2 * N_TWIST * N_MOVES;
+        flipMove = TableFile.section(buffer, position, 2 * N_FLIP * N_MOVES).asCharBuffer();
+        position += 2 * N_FLIP * N_MOVES;
+        sliceMove = TableFile.section(buffer, position, 2 * N_SLICE * N_MOVES).asCharBuffer();
+        position += 2 * N_SLICE * N_MOVES;
+        cornerMove = TableFile.section(buffer, position, 2 * N_PERM_8 * 10).asCharBuffer();
+        position += 2 * N_PERM_8 * 10;
+        udEdgeMove = TableFile.section(buffer, position, 2 * N_PERM_8 * 10).asCharBuffer();
+        position += 2 * N_PERM_8 * 10;
+        slicePermMove = TableFile.section(buffer, position, 2 * N_SLICE_PERM * 10).asCharBuffer();
+        position += 2 * N_SLICE_PERM * 10;
+        sliceTwistPrune = new PruningTable(TableFile.section(buffer, position, PruningTable.bytesFor(N_SLICE * N_TWIST)), N_SLICE * N_TWIST);
+        position += PruningTable.bytesFor(N_SLICE * N_TWIST);
+        sliceFlipPrune = new PruningTable(TableFile.section(buffer, position, PruningTable.bytesFor(N_SLICE * N_FLIP)), N_SLICE * N_FLIP);
+        position += PruningTable.bytesFor(N_SLICE * N_FLIP);
+        sliceCornerPrune = new PruningTable(TableFile.section(buffer, position, PruningTable.bytesFor(N_SLICE_PERM * N_PERM_8)), N_SLICE_PERM * N_PERM_8);
+        position += PruningTable.bytesFor(N_SLICE_PERM * N_PERM_8);
+        sliceUdEdgePrune = new PruningTable(TableFile.section(buffer, position, PruningTable.bytesFor(N_SLICE_PERM * N_PERM_8)), N_SLICE_PERM * N_PERM_8);
+    }
+
+    static int fileSize() {
+        return 8 + 2 * N_MOVES * (N_TWIST + N_FLIP + N_SLICE) + 2 * 10 * (2 * N_PERM_8 + N_SLICE_PERM)
+                + PruningTable.bytesFor(N_SLICE * N_TWIST) + PruningTable.bytesFor(N_SLICE * N_FLIP) + 2 * PruningTable.bytesFor(N_SLICE_PERM * N_PERM_8);
+    }
+
+    public static synchronized TwoPhaseTables get() {
+        if (instance == null) instance = load(TABLE_FILE);
+        return instance;
+    }
+
+    static TwoPhaseTables load(Path file) {
+        return new TwoPhaseTables(TableFile.load(file, fileSize(), MAGIC, VERSION, "solver tables", TwoPhaseTables::generate));
+    }
+
+    static ByteBuffer generate() {
+        ByteBuffer buffer = ByteBuffer.allocate(fileSize()).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        TwoPhaseTables tables = new TwoPhaseTables(buffer);
+        IntStream.range(0, N_TWIST).parallel().forEach(twist -> {
+            CubieCube cube = new CubieCube();
+            for (int m = 0; m < N_MOVES; m++) {
+                cube.reset();
+                cube.setTwist(twist);
+                cube.move(m);
+                tables.twistMove.put(twist * N_MOVES + m, (char) cube.getTwist());
+            }
+        });
+        IntStream.range(0, N_FLIP).parallel().forEach(flip -> {
+            CubieCube cube = new CubieCube();
+            for (int m = 0; m < N_MOVES; m++) {
+                cube.reset();
+                cube.setFlip(flip);
+                cube.move(m);
+                tables.flipMove.put(flip * N_MOVES + m, (char) cube.getFlip());
+            }
+        });
+        IntStream.range(0, N_SLICE).parallel().forEach(slice -> {
+            CubieCube cube = new CubieCube();
+            for (int m = 0; m < N_MOVES; m++) {
+                cube.reset();
+                setSlice(cube, slice);
+                cube.move(m);
+                tables.sliceMove.put(slice * N_MOVES + m, (char) getSlice(cube));
+            }
+        });
+        IntStream.range(0, N_PERM_8).parallel().forEach(perm -> {
+            CubieCube cube = new CubieCube();
+            for (int k = 0; k < 10; k++) {
+                cube.reset();
+                cube.setCornerPermutation(perm);
+                cube.move(PHASE_2_MOVES[k]);
+                tables.cornerMove.put(perm * 10 + k, (char) cube.getCornerPermutation());
+                cube.reset();
+                setUdEdgePermutation(cube, perm);
+                cube.move(PHASE_2_MOVES[k]);
+                tables.udEdgeMove.put(perm * 10 + k, (char) getUdEdgePermutation(cube));
+            }
+        });
+        CubieCube cube = new CubieCube();
+        for (int perm = 0; perm < N_SLICE_PERM; perm++) {
+            for (int k = 0; k < 10; k++) {
+                cube.reset();
+                setSlicePermutation(cube, perm);
+                cube.move(PHASE_2_MOVES[k]);
+                tables.slicePermMove.put(perm * 10 + k, (char) getSlicePermutation(cube));
+            }
+        }
+        buildPruning(tables.sliceTwistPrune, N_TWIST, N_MOVES, tables.sliceMove, tables.twistMove);
+        buildPruning(tables.sliceFlipPrune, N_FLIP, N_MOVES, tables.sliceMove, tables.flipMove);
+        buildPruning(tables.sliceCornerPrune, N_PERM_8, 10, tables.slicePermMove, tables.cornerMove);
+        buildPruning(tables.sliceUdEdgePrune, N_PERM_8, 10, tables.slicePermMove, tables.udEdgeMove);
+        return buffer;
+    }
+
+    private static void buildPruning(PruningTable prune, int size, int moves, CharBuffer sliceTable, CharBuffer otherTable) {
+        //states are numbered slice * size + other, and solved is 0 for both
+        PruningTable.build(prune.nibbles, prune.size, moves, (index, m) ->
+                sliceTable.get(index / size * moves + m) * size + otherTable.get(index % size * moves + m), 0);
+    }
+
+    //coordinates that CubieCube doesn't have itself, since they only mean anything to this solver
+
+    static int sliceIndex(int mask) {
+        //which 4 of the 12 edge positions hold middle layer edges, 0 when they are all in the middle layer
+        int index = 0, seen = 0;
+        for (int j = 11; j >= 0; j--) {
+            if ((mask & (1 << j)) != 0) {
+                index += choose(11 - j, seen + 1);
+                seen++;
+            }
+        }
+        return index;
+    }
+
+    static int choose(int n, int k) {
+        if (k > n) return 0;
+        int result = 1;
+        for (int i = 1; i <= k; i++) {
+            result = result * (n - k + i) / i;
+        }
+        return result;
+    }
+
+    static int getSlice(CubieCube cube) {
+        int mask = 0;
+        for (int j = 0; j < 12; j++) {
+            if (cube.ep[j] >= 8) mask |= 1 << j;
+        }
+        return sliceIndex(mask);
+    }
+
+    static void setSlice(CubieCube cube, int slice) {
+        int mask = SLICE_MASKS[slice];
+        byte sliceEdge = 8, otherEdge = 0;
+        for (int j = 0; j < 12; j++) {
+            cube.ep[j] = (mask & (1 << j)) != 0 ? sliceEdge++ : otherEdge++;
+        }
+    }
+
+    static int getUdEdgePermutation(CubieCube cube) {
+        byte[] edges = new byte[8];
+        System.arraycopy(cube.ep, 0, edges, 0, 8);
+        return CubieCube.permutationIndex(edges);
+    }
+
+    static void setUdEdgePermutation(CubieCube cube, int index) {
+        byte[] edges = new byte[8];
+        CubieCube.setPermutation(edges, index);
+        System.arraycopy(edges, 0, cube.ep, 0, 8);
+    }
+
+    static int getSlicePermutation(CubieCube cube) {
+        byte[] edges = new byte[4];
+        for (int i = 0; i < 4; i++) {
+            edges[i] = (byte) (cube.ep[8 + i] - 8);
+        }
+        return CubieCube.permutationIndex(edges);
+    }
+
+    static void setSlicePermutation(CubieCube cube, int index) {
+        byte[] edges = new byte[4];
+        CubieCube.setPermutation(edges, index);
+        for (int i = 0; i < 4; i++) {
+            cube.ep[8 + i] = (byte) (edges[i] + 8);
+        }
+    }
+}
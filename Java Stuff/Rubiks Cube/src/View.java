@@ -18,7 +18,13 @@ public class View extends Application {
     }
 
     public void start(Stage stage) throws Exception {
-        n = 3;
+        //the size can be given on the command line as --n=5, and is 3 otherwise
+        n = Integer.parseInt(getParameters().getNamed().getOrDefault("n", "3"));
+        if (n < 2) throw new IllegalArgumentException("the cube has to be at least 2x2");
+        //--renderer=stickers draws each sticker as its own square instead of texturing whole cubies
+        boolean drawStickers = getParameters().getNamed().getOrDefault("renderer", "textured").equals("stickers");
+        //--queue=2 lets at most 2 moves wait for the one being animated, and any more than that skip their animations
+        int maxQueued = Integer.parseInt(getParameters().getNamed().getOrDefault("queue", "3"));
         int boxWidth = 100;
         setUserAgentStylesheet(STYLESHEET_MODENA);
         FXMLLoader fxmlLoader = new FXMLLoader();
@@ -26,11 +32,17 @@ public class View extends Application {
         Parent root = fxmlLoader.load(getClass().getResourceAsStream("Scene.fxml"));
         controller = fxmlLoader.getController();
         Scene scene = new Scene(root,811,600,true);
-        controller.setup(n,boxWidth,scene,600);
+        controller.setup(n,boxWidth,scene,600,drawStickers,maxQueued);
 
         stage.setTitle("Rubik's Cube Simulator");
         stage.setScene(scene);
 
         stage.show();
     }
+
+    @Override
+    public void stop() {
+        //what the cube and the view spent their time on, see Metrics
+        if (Metrics.ENABLED) System.out.print(Metrics.report());
+    }
 }